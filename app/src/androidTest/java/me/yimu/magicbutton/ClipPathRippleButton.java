@@ -0,0 +1,67 @@
+package me.yimu.magicbutton;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PointF;
+import android.graphics.RectF;
+
+/**
+ * 改用{@link RippleShader}之前的RippleButton：软件layer + clipPath，只给{@link RippleButtonBenchmark}做对比
+ */
+class ClipPathRippleButton extends RippleButton {
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mBorderPath = new Path();
+    private final RectF mBorderRect = new RectF();
+    private float mBorderPathRadius = -1;
+
+    ClipPathRippleButton(Context context) {
+        super(context);
+        // clipPath在硬件加速下没有抗锯齿，原来的实现整个View走软件绘制
+        setLayerType(LAYER_TYPE_SOFTWARE, null);
+    }
+
+    @Override
+    protected void drawRoundBorder(Canvas canvas, float width, float radius, int color) {
+        mPaint.setColor(color);
+        mPaint.setStyle(Paint.Style.STROKE);
+        mPaint.setStrokeWidth(width);
+        updateBorderPath(width, radius);
+        canvas.save();
+        canvas.clipPath(mBorderPath);
+        if (isActivated()) {
+            canvas.drawColor(getRippleColor());
+        } else {
+            canvas.drawColor(getBgColor());
+        }
+        canvas.restore();
+        canvas.drawRoundRect(mBorderRect, radius, radius, mPaint);
+    }
+
+    private void updateBorderPath(float width, float radius) {
+        float padding = width / 2;
+        float right = (float) getMeasuredWidth() - padding;
+        float bottom = (float) getMeasuredHeight() - padding;
+        if (mBorderRect.left == padding && mBorderRect.right == right
+                && mBorderRect.bottom == bottom && mBorderPathRadius == radius) {
+            return;
+        }
+        mBorderRect.set(padding, padding, right, bottom);
+        mBorderPathRadius = radius;
+        mBorderPath.reset();
+        mBorderPath.addRoundRect(mBorderRect, radius, radius, Path.Direction.CCW);
+    }
+
+    @Override
+    protected void drawRipple(Canvas canvas) {
+        PointF start = getRippleStartPos();
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(getRippleColor());
+        canvas.save();
+        canvas.clipPath(mBorderPath);
+        canvas.drawCircle(start.x, start.y, getRippleRadius(), mPaint);
+        canvas.restore();
+    }
+}
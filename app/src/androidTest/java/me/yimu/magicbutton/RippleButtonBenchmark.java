@@ -0,0 +1,133 @@
+package me.yimu.magicbutton;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.support.test.filters.LargeTest;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.ViewGroup;
+import android.view.Window;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 对比RippleButton原来的 软件layer + clipPath 实现({@link ClipPathRippleButton})和现在的{@link RippleShader}实现
+ * 水波纹动画每帧的绘制耗时
+ * <p>
+ * 两个按钮用同样的参数创建，依次替换布局中的ripple_button。用FrameMetrics统计 draw + sync(包括layer bitmap上传) + command issue 的耗时，需要API 24以上的设备。
+ * 结果输出到logcat: adb logcat -s RippleButtonBenchmark
+ * <p>
+ * 还没有在真机上运行过，去掉软件layer之后每帧的耗时变化目前没有测量数据。
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class RippleButtonBenchmark {
+
+    static final String TAG = "RippleButtonBenchmark";
+
+    private static final int RIPPLE_COUNT = 10;
+
+    @Rule
+    public ActivityTestRule<MainActivity> mActivityRule = new ActivityTestRule<>(MainActivity.class);
+
+    @Test
+    public void rippleFrameCost_clipPathVsShader() throws Throwable {
+        assumeTrue(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N);
+        Activity activity = mActivityRule.getActivity();
+
+        FrameCost clipPath = measure(new ClipPathRippleButton(activity));
+        FrameCost shader = measure(new RippleButton(activity));
+
+        Log.i(TAG, "clipPath + software layer: " + clipPath);
+        Log.i(TAG, "RippleShader:              " + shader);
+        assertTrue(clipPath.frames > 0 && shader.frames > 0);
+    }
+
+    private FrameCost measure(final RippleButton button) throws Throwable {
+        final Activity activity = mActivityRule.getActivity();
+        final Window window = activity.getWindow();
+        final FrameCost cost = new FrameCost();
+        HandlerThread thread = new HandlerThread(TAG);
+        thread.start();
+        final Handler handler = new Handler(thread.getLooper());
+
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                replaceRippleButton(activity, button);
+                window.addOnFrameMetricsAvailableListener(cost, handler);
+            }
+        });
+        // 等替换之后的第一次layout，不把它算进来
+        Thread.sleep(200);
+        for (int i = 0; i < RIPPLE_COUNT; i++) {
+            mActivityRule.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    button.setActivated(false);
+                    button.setRippleStartPos(button.getWidth() / 2, button.getHeight() / 2);
+                    button.startRipple();
+                }
+            });
+            Thread.sleep(button.getRippleDuration() + 100);
+        }
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                window.removeOnFrameMetricsAvailableListener(cost);
+            }
+        });
+        thread.quitSafely();
+        return cost;
+    }
+
+    /**
+     * 用button替换布局中的ripple_button，沿用它的位置、尺寸和文字
+     */
+    private static void replaceRippleButton(Activity activity, RippleButton button) {
+        RippleButton old = (RippleButton) activity.findViewById(R.id.ripple_button);
+        ViewGroup parent = (ViewGroup) old.getParent();
+        int index = parent.indexOfChild(old);
+        button.setText(old.getText());
+        button.setGravity(old.getGravity());
+        button.setTextColor(old.getTextColors());
+        button.setId(R.id.ripple_button);
+        parent.removeViewAt(index);
+        parent.addView(button, index, old.getLayoutParams());
+    }
+
+    private static class FrameCost implements Window.OnFrameMetricsAvailableListener {
+        int frames;
+        long drawNanos;
+        long syncNanos;
+        long issueNanos;
+
+        @Override
+        public synchronized void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics,
+                                                         int dropCountSinceLastInvocation) {
+            frames++;
+            drawNanos += frameMetrics.getMetric(FrameMetrics.DRAW_DURATION);
+            syncNanos += frameMetrics.getMetric(FrameMetrics.SYNC_DURATION);
+            issueNanos += frameMetrics.getMetric(FrameMetrics.COMMAND_ISSUE_DURATION);
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (frames == 0) {
+                return "no frames";
+            }
+            return String.format("%d frames, per frame draw %.1fus, sync %.1fus, issue %.1fus, total %.1fus",
+                    frames, drawNanos / 1000f / frames, syncNanos / 1000f / frames,
+                    issueNanos / 1000f / frames, (drawNanos + syncNanos + issueNanos) / 1000f / frames);
+        }
+    }
+}
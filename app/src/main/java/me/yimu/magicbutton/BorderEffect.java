@@ -0,0 +1,133 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Canvas;
+import android.graphics.RectF;
+
+/**
+ * 圆角边框背景和水波纹效果
+ * <p>
+ * 点赞时水波纹从图标中心扩散到整个按钮，用{@link RippleShader}限制在圆角矩形内，不需要clipPath
+ */
+final class BorderEffect extends MagicEffect {
+
+    private final float mBorderWidth;
+    private final float mCornerRadius;
+    private final int mBorderColor;
+    private final int mOffColor;
+    private final int mOnColor;
+    private final float mRippleStartRadius;
+    private int mBgColor;
+    private final RectF mRect = new RectF();
+
+    private RippleShader mRippleShader;
+    private MagicAnimation mRippleAnimation;
+    private float mRippleRadius;
+    private float mRippleMaxRadius;
+    private final DirtyBounds mRippleDirty = new DirtyBounds();
+
+    /**
+     * @param borderWidth       边框宽度(px)
+     * @param cornerRadius      圆角半径(px)
+     * @param borderColor       边框颜色
+     * @param offColor          未点赞的背景色
+     * @param onColor           已点赞的背景色，也是水波纹的颜色
+     * @param rippleStartRadius 水波纹的起始半径(px)
+     */
+    BorderEffect(float borderWidth, float cornerRadius, int borderColor, int offColor, int onColor,
+                 float rippleStartRadius) {
+        mBorderWidth = borderWidth;
+        mCornerRadius = cornerRadius;
+        mBorderColor = borderColor;
+        mOffColor = offColor;
+        mOnColor = onColor;
+        mRippleStartRadius = rippleStartRadius;
+        mBgColor = offColor;
+    }
+
+    /**
+     * 边框和水波纹的最大半径只依赖于按钮的尺寸，尺寸变化时才重新计算
+     */
+    @Override
+    void onSizeChanged(int w, int h) {
+        float inset = mBorderWidth / 2;
+        mRect.set(inset, inset, w - inset, h - inset);
+        // 最大半径为水波纹中心到按钮最远角的距离
+        mRippleMaxRadius = (int) RippleGeometry.farthestCornerDistance(
+                mRenderer.getIconCenterX(), mRenderer.getIconCenterY(), w, h);
+    }
+
+    @Override
+    void onDetachedFromWindow() {
+        if (mRippleAnimation == null) {
+            return;
+        }
+        if (mRippleAnimation.isRunning()) {
+            mRippleAnimation.end();
+        }
+        mRippleAnimation = null;
+    }
+
+    @Override
+    void start(boolean on) {
+        if (!on) {
+            mBgColor = mOffColor;
+            return;
+        }
+        if (mRippleAnimation == null) {
+            mRippleShader = new RippleShader(mOnColor);
+            mRippleAnimation = newAnimation(400, KeyframeTimeline.EASE_DECELERATE, new EffectListener() {
+                @Override
+                public void onAnimationUpdate(MagicAnimation animation) {
+                    // 数字变化后可能重新layout，每帧按当前的尺寸计算半径
+                    mRippleRadius = RippleGeometry.radiusAt(mRippleStartRadius, mRippleMaxRadius,
+                            animation.getAnimatedFraction());
+                    mRippleDirty.invalidate(mRenderer.getFrameInvalidator(), mRenderer.getIconCenterX(),
+                            mRenderer.getIconCenterY(), mRippleRadius);
+                }
+            });
+        }
+        mRippleRadius = 0;
+        mRippleDirty.reset();
+        mRippleAnimation.start();
+    }
+
+    @Override
+    boolean isRunning() {
+        return mRippleAnimation != null && mRippleAnimation.isRunning();
+    }
+
+    @Override
+    void stop() {
+        if (mRippleAnimation != null) {
+            mRippleAnimation.reset();
+        }
+    }
+
+    @Override
+    void settle(boolean on) {
+        mBgColor = on ? mOnColor : mOffColor;
+    }
+
+    @Override
+    void setMetrics(MagicMetrics metrics) {
+        if (mRippleAnimation != null) {
+            mRippleAnimation.setMetrics(metrics);
+        }
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        MagicPaints.FILL.setColor(mBgColor);
+        canvas.drawRoundRect(mRect, mCornerRadius, mCornerRadius, MagicPaints.FILL);
+
+        MagicPaints.STROKE.setColor(mBorderColor);
+        MagicPaints.STROKE.setStrokeWidth(mBorderWidth);
+        canvas.drawRoundRect(mRect, mCornerRadius, mCornerRadius, MagicPaints.STROKE);
+
+        // 水波纹扩散完之后保持铺满，直到进入最终状态
+        if (mRenderer.getState() == MagicVoteRenderer.STATE_TURNING_ON && mRippleShader != null) {
+            mRippleShader.draw(canvas, mRect, mCornerRadius, mRenderer.getIconCenterX(),
+                    mRenderer.getIconCenterY(), mRippleRadius);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Canvas;
+
+/**
+ * 数字，画在{@link MagicVoteRenderer}的图标区域右边，为0时不显示
+ */
+final class CountEffect extends MagicEffect {
+
+    /**
+     * 垂直居中
+     */
+    static final int GRAVITY_CENTER = 0;
+    /**
+     * 顶部对齐，角标样式
+     */
+    static final int GRAVITY_TOP = 1;
+
+    private final float mTextSize;
+    private final int mOffColor;
+    private final int mOnColor;
+    private final int mGravity;
+    private final CountMetrics mMetrics;
+    private final CountText mCountText = new CountText();
+    private int mColor;
+
+    /**
+     * @param textSize 文字大小(px)
+     * @param offColor 未点赞的颜色
+     * @param onColor  已点赞的颜色，点赞/取消点赞时立即切换
+     * @param gravity  {@link #GRAVITY_CENTER}或{@link #GRAVITY_TOP}
+     */
+    CountEffect(float textSize, int offColor, int onColor, int gravity) {
+        mTextSize = textSize;
+        mOffColor = offColor;
+        mOnColor = onColor;
+        mGravity = gravity;
+        mColor = offColor;
+        MagicPaints.TEXT.setTextSize(textSize);
+        mMetrics = CountMetricsCache.obtain(MagicPaints.TEXT);
+    }
+
+    /**
+     * 数字的宽度，不显示时为0
+     */
+    int measureWidth(int count) {
+        return count > 0 ? (int) mMetrics.measure(count) : 0;
+    }
+
+    int measureHeight() {
+        // beware: ascent is a negative number
+        return (int) (-mMetrics.getAscent() + mMetrics.getDescent());
+    }
+
+    @Override
+    void start(boolean on) {
+        mColor = on ? mOnColor : mOffColor;
+    }
+
+    @Override
+    void settle(boolean on) {
+        mColor = on ? mOnColor : mOffColor;
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        int count = mRenderer.getCount();
+        if (count == 0) {
+            return;
+        }
+        float y = mGravity == GRAVITY_TOP ? mMetrics.getBoundsHeight(count)
+                : mRenderer.getHeight() / 2 + mMetrics.getCenterOffsetY(count);
+        MagicPaints.TEXT.setTextSize(mTextSize);
+        MagicPaints.TEXT.setColor(mColor);
+        canvas.drawText(mCountText.get(count), mRenderer.getTextX(), y, MagicPaints.TEXT);
+    }
+}
@@ -0,0 +1,113 @@
+package me.yimu.magicbutton;
+
+/**
+ * 数字的宽度表和字体尺寸
+ * <p>
+ * 数字只由0-9和负号组成，宽度直接由每个字符的宽度累加得到，不需要每次都measureText。
+ * 垂直方向的bounds为各个字符bounds的并集，同样由每个字符的bounds得到，不需要每次getTextBounds，
+ * 和原来一样按实际的数字字符串居中。
+ * 由{@link CountMetricsCache}按textSize和typeface创建并共享，不依赖android，可以直接在JVM上测试。
+ */
+final class CountMetrics {
+
+    private final float[] mDigitWidths;
+    private final float mMinusWidth;
+    private final float mAscent;
+    private final float mDescent;
+    private final float[] mDigitTops;
+    private final float[] mDigitBottoms;
+    private final float mMinusTop;
+    private final float mMinusBottom;
+
+    /**
+     * @param digitWidths  0-9的宽度
+     * @param minusWidth   负号的宽度
+     * @param ascent       字体ascent，负数
+     * @param descent      字体descent
+     * @param digitTops    0-9各自的bounds top，相对baseline，负数
+     * @param digitBottoms 0-9各自的bounds bottom，相对baseline
+     * @param minusTop     负号的bounds top
+     * @param minusBottom  负号的bounds bottom
+     */
+    CountMetrics(float[] digitWidths, float minusWidth, float ascent, float descent,
+                 float[] digitTops, float[] digitBottoms, float minusTop, float minusBottom) {
+        if (digitWidths.length != 10 || digitTops.length != 10 || digitBottoms.length != 10) {
+            throw new IllegalArgumentException("need metrics of 0-9");
+        }
+        mDigitWidths = digitWidths;
+        mMinusWidth = minusWidth;
+        mAscent = ascent;
+        mDescent = descent;
+        mDigitTops = digitTops;
+        mDigitBottoms = digitBottoms;
+        mMinusTop = minusTop;
+        mMinusBottom = minusBottom;
+    }
+
+    /**
+     * 和 paint.measureText(String.valueOf(count)) 一致（数字之间没有kerning）
+     */
+    float measure(int count) {
+        long value = count;
+        float width = 0;
+        if (value < 0) {
+            width += mMinusWidth;
+            value = -value;
+        }
+        do {
+            width += mDigitWidths[(int) (value % 10)];
+            value /= 10;
+        } while (value > 0);
+        return width;
+    }
+
+    float getAscent() {
+        return mAscent;
+    }
+
+    float getDescent() {
+        return mDescent;
+    }
+
+    /**
+     * 数字bounds的高度，即 textBounds.height()
+     */
+    float getBoundsHeight(int count) {
+        return getBoundsBottom(count) - getBoundsTop(count);
+    }
+
+    /**
+     * 让数字垂直居中时baseline相对中心线的偏移，即 -textBounds.exactCenterY()
+     */
+    float getCenterOffsetY(int count) {
+        return -(getBoundsTop(count) + getBoundsBottom(count)) / 2;
+    }
+
+    private float getBoundsTop(int count) {
+        long value = count;
+        float top = Float.MAX_VALUE;
+        if (value < 0) {
+            top = mMinusTop;
+            value = -value;
+        }
+        do {
+            top = Math.min(top, mDigitTops[(int) (value % 10)]);
+            value /= 10;
+        } while (value > 0);
+        return top;
+    }
+
+    private float getBoundsBottom(int count) {
+        long value = count;
+        float bottom = -Float.MAX_VALUE;
+        if (value < 0) {
+            bottom = mMinusBottom;
+            value = -value;
+        }
+        do {
+            bottom = Math.max(bottom, mDigitBottoms[(int) (value % 10)]);
+            value /= 10;
+        } while (value > 0);
+        return bottom;
+    }
+}
@@ -0,0 +1,66 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import java.util.ArrayList;
+
+/**
+ * 按 textSize + typeface 共享的{@link CountMetrics}，只能在主线程调用
+ */
+final class CountMetricsCache {
+
+    private static final String DIGITS = "0123456789";
+    private static final String MINUS = "-";
+
+    // 按钮用到的字体配置很少，直接线性查找，查找时不需要创建key
+    private static final ArrayList<Entry> sEntries = new ArrayList<>();
+
+    private static class Entry {
+        final float textSize;
+        final Typeface typeface;
+        final CountMetrics metrics;
+
+        Entry(float textSize, Typeface typeface, CountMetrics metrics) {
+            this.textSize = textSize;
+            this.typeface = typeface;
+            this.metrics = metrics;
+        }
+    }
+
+    private CountMetricsCache() {
+    }
+
+    static CountMetrics obtain(Paint paint) {
+        float textSize = paint.getTextSize();
+        Typeface typeface = paint.getTypeface();
+        for (int i = 0, size = sEntries.size(); i < size; i++) {
+            Entry entry = sEntries.get(i);
+            if (entry.textSize == textSize && entry.typeface == typeface) {
+                return entry.metrics;
+            }
+        }
+        CountMetrics metrics = create(paint);
+        sEntries.add(new Entry(textSize, typeface, metrics));
+        return metrics;
+    }
+
+    private static CountMetrics create(Paint paint) {
+        float[] digitWidths = new float[DIGITS.length()];
+        paint.getTextWidths(DIGITS, digitWidths);
+        float[] digitTops = new float[DIGITS.length()];
+        float[] digitBottoms = new float[DIGITS.length()];
+        Rect bounds = new Rect();
+        for (int i = 0; i < DIGITS.length(); i++) {
+            paint.getTextBounds(DIGITS, i, i + 1, bounds);
+            digitTops[i] = bounds.top;
+            digitBottoms[i] = bounds.bottom;
+        }
+        paint.getTextBounds(MINUS, 0, MINUS.length(), bounds);
+        Paint.FontMetrics fontMetrics = paint.getFontMetrics();
+        return new CountMetrics(digitWidths, paint.measureText(MINUS),
+                fontMetrics.ascent, fontMetrics.descent, digitTops, digitBottoms,
+                bounds.top, bounds.bottom);
+    }
+}
@@ -0,0 +1,18 @@
+package me.yimu.magicbutton;
+
+/**
+ * 数字文字缓存，数字不变时返回同一个String，避免绘制时每帧String.valueOf
+ */
+final class CountText {
+
+    private int mCount;
+    private String mText;
+
+    String get(int count) {
+        if (mText == null || count != mCount) {
+            mCount = count;
+            mText = String.valueOf(count);
+        }
+        return mText;
+    }
+}
@@ -0,0 +1,37 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Rect;
+
+/**
+ * 动画效果的重绘区域
+ * <p>
+ * 每帧只invalidate本帧和上一帧bounds的并集（上一帧的内容需要擦掉），软件绘制时不需要重绘整个view。
+ * 并集先交给{@link FrameInvalidator}，和同一个view的其他效果合并后在帧末一起invalidate。
+ */
+final class DirtyBounds {
+
+    // 抗锯齿的边缘会超出几何bounds
+    private static final int AA_MARGIN = 1;
+
+    private final Rect mLast = new Rect();
+    private final Rect mDirty = new Rect();
+
+    void invalidate(FrameInvalidator invalidator, float left, float top, float right, float bottom) {
+        mDirty.set(mLast);
+        mLast.set((int) Math.floor(left) - AA_MARGIN, (int) Math.floor(top) - AA_MARGIN,
+                (int) Math.ceil(right) + AA_MARGIN, (int) Math.ceil(bottom) + AA_MARGIN);
+        mDirty.union(mLast);
+        invalidator.add(mDirty);
+    }
+
+    /**
+     * 以(cx, cy)为中心、halfSize为半边长的正方形
+     */
+    void invalidate(FrameInvalidator invalidator, float cx, float cy, float halfSize) {
+        invalidate(invalidator, cx - halfSize, cy - halfSize, cx + halfSize, cy + halfSize);
+    }
+
+    void reset() {
+        mLast.setEmpty();
+    }
+}
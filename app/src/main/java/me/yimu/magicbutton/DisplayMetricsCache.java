@@ -0,0 +1,266 @@
+package me.yimu.magicbutton;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.view.View;
+import android.view.WindowManager;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * {@link UIUtils}中屏幕尺寸的缓存，adapter每次bind都会调用，不能每次都查WindowManager
+ * <p>
+ * 屏幕尺寸缓存的是默认Display的快照，按Context的Resources分别缓存：分屏时Activity的配置和Application的不同，
+ * 不能拿到别的配置下的尺寸。快照记录了当时的Configuration，Resources的配置变了就不再使用；
+ * Application配置变化（旋转、修改显示大小）或者有Activity的窗口attach时全部丢弃。
+ * 快照不可变，最近用到的一份读取时不加锁，任何线程都可以调用。
+ * <p>
+ * 状态栏高度每个窗口不同（全屏、沉浸式、分屏），按DecorView分别缓存，窗口attach、尺寸变化或者
+ * {@link #invalidate()}时丢弃，和原来一样只能在主线程调用。
+ */
+final class DisplayMetricsCache {
+
+    static final class Snapshot {
+        final int widthPixels;
+        final int heightPixels;
+        final float density;
+        // 快照来自的Resources，和当时影响尺寸的配置
+        final WeakReference<Resources> resources;
+        final int orientation;
+        final int screenWidthDp;
+        final int screenHeightDp;
+        final int densityDpi;
+
+        Snapshot(int widthPixels, int heightPixels, float density, Resources resources) {
+            this.widthPixels = widthPixels;
+            this.heightPixels = heightPixels;
+            this.density = density;
+            this.resources = new WeakReference<>(resources);
+            Configuration config = resources.getConfiguration();
+            orientation = config.orientation;
+            screenWidthDp = config.screenWidthDp;
+            screenHeightDp = config.screenHeightDp;
+            densityDpi = densityDpiOf(config);
+        }
+
+        /**
+         * 只比较影响尺寸的几个字段，Configuration.equals每次bind都调用太重
+         */
+        boolean matches(Resources res) {
+            if (resources.get() != res) {
+                return false;
+            }
+            Configuration config = res.getConfiguration();
+            return orientation == config.orientation && screenWidthDp == config.screenWidthDp
+                    && screenHeightDp == config.screenHeightDp && densityDpi == densityDpiOf(config);
+        }
+
+        private static int densityDpiOf(Configuration config) {
+            // Configuration.densityDpi在API 17才有
+            return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 ? config.densityDpi : 0;
+        }
+    }
+
+    private static final Object sLock = new Object();
+    // 最近一次用到的快照，同一个Context连续读取时不需要加锁
+    private static volatile Snapshot sLast;
+    // Resources -> 快照，只在sLock中访问
+    private static final WeakHashMap<Resources, Snapshot> sSnapshots = new WeakHashMap<>();
+    // 每次丢弃缓存+1，丢弃之前开始获取的快照不能再放进缓存
+    private static int sGeneration;
+    // 和sGeneration同时+1，状态栏高度的缓存在主线程读取时检查
+    private static volatile int sWindowGeneration;
+    // 已经注册了回调的Application，一般整个进程只有一个
+    private static Context sRegistered;
+    // DecorView -> 这个窗口的状态栏高度，只在主线程访问
+    private static final WeakHashMap<View, WindowEntry> sWindows = new WeakHashMap<>();
+
+    private static final ComponentCallbacks sCallbacks = new ComponentCallbacks() {
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            invalidate();
+        }
+
+        @Override
+        public void onLowMemory() {
+        }
+    };
+
+    /**
+     * 在onStart时DecorView已经创建，attach在onResume之后
+     */
+    private static final Application.ActivityLifecycleCallbacks sActivityCallbacks =
+            new Application.ActivityLifecycleCallbacks() {
+                @Override
+                public void onActivityStarted(Activity activity) {
+                    windowOf(activity);
+                }
+
+                @Override
+                public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+                }
+
+                @Override
+                public void onActivityResumed(Activity activity) {
+                }
+
+                @Override
+                public void onActivityPaused(Activity activity) {
+                }
+
+                @Override
+                public void onActivityStopped(Activity activity) {
+                }
+
+                @Override
+                public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+                }
+
+                @Override
+                public void onActivityDestroyed(Activity activity) {
+                }
+            };
+
+    private DisplayMetricsCache() {
+    }
+
+    static Snapshot get(Context context) {
+        Resources res = context.getResources();
+        Snapshot snapshot = sLast;
+        if (snapshot != null && snapshot.matches(res)) {
+            return snapshot;
+        }
+        synchronized (sLock) {
+            snapshot = sSnapshots.get(res);
+            if (snapshot != null && snapshot.matches(res)) {
+                sLast = snapshot;
+                return snapshot;
+            }
+        }
+        int generation = register(context);
+        WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        DisplayMetrics metrics = new DisplayMetrics();
+        wm.getDefaultDisplay().getMetrics(metrics);
+        snapshot = new Snapshot(metrics.widthPixels, metrics.heightPixels, metrics.density, res);
+        publish(res, snapshot, generation);
+        return snapshot;
+    }
+
+    static int getStatusBarHeight(Activity activity) {
+        register(activity);
+        return windowOf(activity).getStatusBarHeight(activity.getWindow().getDecorView());
+    }
+
+    /**
+     * 丢弃屏幕尺寸和所有窗口状态栏高度的缓存，下一次读取时重新获取
+     */
+    static void invalidate() {
+        synchronized (sLock) {
+            sGeneration++;
+            sWindowGeneration = sGeneration;
+            sSnapshots.clear();
+            sLast = null;
+        }
+    }
+
+    private static WindowEntry windowOf(Activity activity) {
+        View decor = activity.getWindow().getDecorView();
+        WindowEntry entry = sWindows.get(decor);
+        if (entry == null) {
+            // entry不引用DecorView，WeakHashMap的key可以被回收
+            entry = new WindowEntry();
+            decor.addOnAttachStateChangeListener(entry);
+            decor.addOnLayoutChangeListener(entry);
+            sWindows.put(decor, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * 第一次获取时注册配置变化和Activity的回调
+     *
+     * @return 当前的generation
+     */
+    private static int register(Context context) {
+        Context app = context.getApplicationContext();
+        if (app == null) {
+            app = context;
+        }
+        synchronized (sLock) {
+            if (sRegistered != app) {
+                app.registerComponentCallbacks(sCallbacks);
+                if (app instanceof Application) {
+                    ((Application) app).registerActivityLifecycleCallbacks(sActivityCallbacks);
+                }
+                sRegistered = app;
+            }
+            return sGeneration;
+        }
+    }
+
+    private static void publish(Resources res, Snapshot snapshot, int generation) {
+        synchronized (sLock) {
+            if (generation == sGeneration) {
+                sSnapshots.put(res, snapshot);
+                sLast = snapshot;
+            }
+        }
+    }
+
+    /**
+     * 一个窗口的状态栏高度，窗口attach和DecorView尺寸变化时丢弃
+     * <p>
+     * 列表bind时的requestLayout也会让DecorView重新layout，尺寸没变时保留缓存
+     */
+    private static final class WindowEntry implements View.OnAttachStateChangeListener,
+            View.OnLayoutChangeListener {
+
+        private final Rect mFrame = new Rect();
+        // -1为还没有获取
+        private int mStatusBarHeight = -1;
+        // 获取时的sWindowGeneration
+        private int mGeneration;
+
+        int getStatusBarHeight(View decor) {
+            int generation = sWindowGeneration;
+            if (mStatusBarHeight >= 0 && mGeneration == generation) {
+                return mStatusBarHeight;
+            }
+            decor.getWindowVisibleDisplayFrame(mFrame);
+            // 还没有attach时的结果不可靠，不缓存
+            if (decor.getWindowToken() != null) {
+                mStatusBarHeight = mFrame.top;
+                mGeneration = generation;
+            }
+            return mFrame.top;
+        }
+
+        @Override
+        public void onViewAttachedToWindow(View v) {
+            mStatusBarHeight = -1;
+            invalidate();
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(View v) {
+            mStatusBarHeight = -1;
+        }
+
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                   int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            if (left != oldLeft || top != oldTop || right != oldRight || bottom != oldBottom) {
+                mStatusBarHeight = -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package me.yimu.magicbutton;
+
+/**
+ * 放射点效果的粒子
+ * <p>
+ * 所有粒子从中心沿均分的方向同时扩散，扩散结束后一起淡出。
+ * 粒子的位置保存在预先分配好的float数组中，格式为 x0, y0, x1, y1 ...，
+ * 可以直接交给Canvas.drawPoints一次画完，每帧不分配内存。不依赖android，可以直接在JVM上测试。
+ */
+final class EmitParticles {
+
+    static final int MAX_COUNT = 64;
+
+    static final int DEFAULT_COUNT = 8;
+    static final float DEFAULT_SPREAD_DURATION = 400;
+    static final float DEFAULT_FADE_DURATION = 400;
+
+    private final float[] mPoints = new float[MAX_COUNT * 2];
+    // 每个粒子的方向，TrigTable中的下标
+    private final int[] mAngles = new int[MAX_COUNT];
+    private int mCount;
+
+    private final float mMinRadius;
+    private final float mMaxRadius;
+    private float mSpeed;
+    private float mFadeDuration = DEFAULT_FADE_DURATION;
+    private float mCenterX;
+    private float mCenterY;
+
+    private float mRadius;
+    private int mAlpha = 255;
+
+    /**
+     * @param minRadius 开始时距中心的距离(px)
+     * @param maxRadius 扩散结束时距中心的距离(px)
+     */
+    EmitParticles(float minRadius, float maxRadius) {
+        mMinRadius = minRadius;
+        mMaxRadius = maxRadius;
+        mSpeed = (maxRadius - minRadius) / DEFAULT_SPREAD_DURATION;
+        setCount(DEFAULT_COUNT);
+    }
+
+    void setCount(int count) {
+        if (count < 1 || count > MAX_COUNT) {
+            throw new IllegalArgumentException("count must be in [1, " + MAX_COUNT + "]");
+        }
+        mCount = count;
+        for (int i = 0; i < count; i++) {
+            mAngles[i] = i * TrigTable.SIZE / count;
+        }
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @param speed 扩散的平均速度(px/ms)
+     */
+    void setSpeed(float speed) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+        mSpeed = speed;
+    }
+
+    /**
+     * @param fadeDuration 扩散结束后淡出的时间(ms)
+     */
+    void setFadeDuration(float fadeDuration) {
+        mFadeDuration = Math.max(0, fadeDuration);
+    }
+
+    void setCenter(float cx, float cy) {
+        mCenterX = cx;
+        mCenterY = cy;
+    }
+
+    float getSpreadDuration() {
+        return (mMaxRadius - mMinRadius) / mSpeed;
+    }
+
+    float getDuration() {
+        return getSpreadDuration() + mFadeDuration;
+    }
+
+    /**
+     * 计算time(ms)时所有粒子的位置和透明度
+     * 1: 半径从最小扩散到最大，减速运动
+     * 2: 透明度从255到0，先加速后减速
+     */
+    void update(float time) {
+        float spread = getSpreadDuration();
+        float fraction = spread > 0 ? Math.min(Math.max(time / spread, 0), 1) : 1;
+        mRadius = mMinRadius + (mMaxRadius - mMinRadius)
+                * KeyframeTimeline.ease(KeyframeTimeline.EASE_DECELERATE, fraction);
+        float fade = mFadeDuration > 0 ? Math.min(Math.max((time - spread) / mFadeDuration, 0), 1)
+                : (time >= spread ? 1 : 0);
+        mAlpha = (int) (255 * (1 - KeyframeTimeline.ease(
+                KeyframeTimeline.EASE_ACCELERATE_DECELERATE, fade)));
+        float[] points = mPoints;
+        for (int i = 0; i < mCount; i++) {
+            points[i * 2] = mCenterX + mRadius * TrigTable.cos(mAngles[i]);
+            points[i * 2 + 1] = mCenterY + mRadius * TrigTable.sin(mAngles[i]);
+        }
+    }
+
+    /**
+     * 粒子的位置，有效长度为 getCount() * 2
+     */
+    float[] getPoints() {
+        return mPoints;
+    }
+
+    float getRadius() {
+        return mRadius;
+    }
+
+    int getAlpha() {
+        return mAlpha;
+    }
+}
@@ -0,0 +1,110 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Canvas;
+
+/**
+ * 放射点效果，点赞时从图标中心向外扩散然后淡出，见{@link EmitParticles}
+ */
+final class EmitPointsEffect extends MagicEffect {
+
+    private final int mColor;
+    private final float mMaxRadius;
+    private final float mPointRadius;
+    private final EmitParticles mParticles;
+    private MagicAnimation mAnimation;
+    private final DirtyBounds mDirty = new DirtyBounds();
+
+    EmitPointsEffect(int color, float minRadius, float maxRadius, float pointRadius) {
+        mColor = color;
+        mMaxRadius = maxRadius;
+        mPointRadius = pointRadius;
+        mParticles = new EmitParticles(minRadius, maxRadius);
+    }
+
+    /**
+     * 所有点都在图标区域内时需要的图标区域大小
+     */
+    int getSlotSize() {
+        return (int) (mMaxRadius + mPointRadius) * 2;
+    }
+
+    EmitParticles getParticles() {
+        return mParticles;
+    }
+
+    @Override
+    void onSizeChanged(int w, int h) {
+        mParticles.setCenter(mRenderer.getIconCenterX(), mRenderer.getIconCenterY());
+    }
+
+    @Override
+    void onDetachedFromWindow() {
+        if (mAnimation == null) {
+            return;
+        }
+        if (mAnimation.isRunning()) {
+            mAnimation.end();
+        }
+        mAnimation = null;
+    }
+
+    @Override
+    void start(boolean on) {
+        if (!on) {
+            return;
+        }
+        if (mAnimation == null) {
+            // 放射点先扩散，然后淡出，时长在每次开始时按当前的设置更新
+            mAnimation = newAnimation(mParticles.getDuration(), KeyframeTimeline.EASE_LINEAR,
+                    new EffectListener() {
+                        @Override
+                        public void onAnimationUpdate(MagicAnimation animation) {
+                            mParticles.update(animation.getPlayTime());
+                            invalidatePoints();
+                        }
+                    });
+        }
+        mDirty.reset();
+        mParticles.update(0);
+        mAnimation.setDuration(mParticles.getDuration());
+        mAnimation.start();
+    }
+
+    @Override
+    boolean isRunning() {
+        return mAnimation != null && mAnimation.isRunning();
+    }
+
+    @Override
+    void stop() {
+        if (mAnimation != null) {
+            mAnimation.reset();
+        }
+    }
+
+    @Override
+    void setMetrics(MagicMetrics metrics) {
+        if (mAnimation != null) {
+            mAnimation.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * 只重绘放射点所在的圆环
+     */
+    private void invalidatePoints() {
+        mDirty.invalidate(mRenderer.getFrameInvalidator(), mRenderer.getIconCenterX(), mRenderer.getIconCenterY(),
+                mParticles.getRadius() + mPointRadius);
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        if (!isRunning()) {
+            return;
+        }
+        MagicPaints.POINTS.setColor(mColor);
+        MagicPaints.POINTS.setAlpha(mParticles.getAlpha());
+        MagicPaints.POINTS.setStrokeWidth(mPointRadius * 2);
+        canvas.drawPoints(mParticles.getPoints(), 0, mParticles.getCount() * 2, MagicPaints.POINTS);
+    }
+}
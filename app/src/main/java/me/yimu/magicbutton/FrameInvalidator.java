@@ -0,0 +1,50 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * 收集一帧内各个动画效果的重绘区域，帧末合并成一次invalidate
+ */
+final class FrameInvalidator implements MagicAnimationDriver.Host {
+
+    /**
+     * 接收合并后的重绘区域，可以是View，也可以是Drawable等不是View的宿主
+     */
+    interface Target {
+        /**
+         * @param dirty 本帧的重绘区域，调用结束后会被清空，可以直接修改
+         */
+        void invalidateFrame(Rect dirty);
+    }
+
+    private final Target mTarget;
+    private final Rect mDirty = new Rect();
+
+    FrameInvalidator(final View view) {
+        this(new Target() {
+            @Override
+            public void invalidateFrame(Rect dirty) {
+                if (dirty.intersect(0, 0, view.getWidth(), view.getHeight())) {
+                    view.invalidate(dirty);
+                }
+            }
+        });
+    }
+
+    FrameInvalidator(Target target) {
+        mTarget = target;
+    }
+
+    void add(Rect dirty) {
+        mDirty.union(dirty);
+    }
+
+    @Override
+    public void onAnimationFrame() {
+        if (!mDirty.isEmpty()) {
+            mTarget.invalidateFrame(mDirty);
+        }
+        mDirty.setEmpty();
+    }
+}
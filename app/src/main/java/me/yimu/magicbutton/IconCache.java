@@ -0,0 +1,118 @@
+package me.yimu.magicbutton;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.SparseArray;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * 进程内共享的按钮图标缓存
+ * <p>
+ * 以 资源id + densityDpi 作为key，同一个图标在同一个density下只decode一次，
+ * 所有的Frodo按钮共用同一个Bitmap。通过引用计数管理，最后一个使用者release之后不马上移除，
+ * 而是放进一个很小的LRU，列表的一行滑出又滑回来时不需要重新decode。
+ * release按acquire得到的Bitmap查找，density变化之后也能释放原来的那一份。
+ * 只能在主线程调用。
+ */
+public final class IconCache {
+
+    // 没有使用者之后最多保留的图标数量
+    private static final int MAX_UNUSED = 8;
+
+    // densityDpi -> (resId -> Entry)
+    private static final SparseArray<SparseArray<Entry>> sEntries = new SparseArray<>();
+    private static final IdentityHashMap<Bitmap, Entry> sByBitmap = new IdentityHashMap<>();
+    // 引用计数为0的图标，最久没有用到的在前面
+    private static final ArrayList<Entry> sUnused = new ArrayList<>(MAX_UNUSED + 1);
+
+    private static class Entry {
+        final Bitmap bitmap;
+        final int densityDpi;
+        final int resId;
+        int refCount;
+
+        Entry(Bitmap bitmap, int densityDpi, int resId) {
+            this.bitmap = bitmap;
+            this.densityDpi = densityDpi;
+            this.resId = resId;
+        }
+    }
+
+    private IconCache() {
+    }
+
+    /**
+     * 获取图标，引用计数+1，使用完之后必须用返回的Bitmap调用{@link #release(Bitmap)}
+     *
+     * @param res
+     * @param resId
+     * @return
+     */
+    public static Bitmap acquire(Resources res, int resId) {
+        int densityDpi = res.getDisplayMetrics().densityDpi;
+        SparseArray<Entry> entries = sEntries.get(densityDpi);
+        if (entries == null) {
+            entries = new SparseArray<>();
+            sEntries.put(densityDpi, entries);
+        }
+        Entry entry = entries.get(resId);
+        if (entry == null) {
+            entry = new Entry(BitmapFactory.decodeResource(res, resId), densityDpi, resId);
+            entries.put(resId, entry);
+            sByBitmap.put(entry.bitmap, entry);
+        } else if (entry.refCount == 0) {
+            sUnused.remove(entry);
+        }
+        entry.refCount++;
+        return entry.bitmap;
+    }
+
+    /**
+     * 释放图标，引用计数为0时放进LRU，超出{@link #MAX_UNUSED}个时移除最久没有用到的
+     *
+     * @param bitmap {@link #acquire(Resources, int)}返回的Bitmap
+     */
+    public static void release(Bitmap bitmap) {
+        Entry entry = sByBitmap.get(bitmap);
+        if (entry == null || entry.refCount <= 0) {
+            return;
+        }
+        entry.refCount--;
+        if (entry.refCount == 0) {
+            sUnused.add(entry);
+            if (sUnused.size() > MAX_UNUSED) {
+                remove(sUnused.remove(0));
+            }
+        }
+    }
+
+    /**
+     * 当前的使用者数量，不在缓存中时返回-1
+     */
+    static int getRefCount(Bitmap bitmap) {
+        Entry entry = sByBitmap.get(bitmap);
+        return entry != null ? entry.refCount : -1;
+    }
+
+    /**
+     * 清空缓存，只给测试用
+     */
+    static void clear() {
+        sEntries.clear();
+        sByBitmap.clear();
+        sUnused.clear();
+    }
+
+    private static void remove(Entry entry) {
+        // 不recycle，可能还有已经detach的view持有这个bitmap，交给GC处理
+        sByBitmap.remove(entry.bitmap);
+        SparseArray<Entry> entries = sEntries.get(entry.densityDpi);
+        entries.remove(entry.resId);
+        if (entries.size() == 0) {
+            sEntries.remove(entry.densityDpi);
+        }
+    }
+}
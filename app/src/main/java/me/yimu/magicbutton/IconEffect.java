@@ -0,0 +1,173 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+
+/**
+ * icon抖动效果，图标居中画在{@link MagicVoteRenderer}的图标区域
+ * <p>
+ * 角度和大小按时间线变化，见{@link MagicTimelines}
+ */
+final class IconEffect extends MagicEffect {
+
+    private final int mOffRes;
+    private final int mOnRes;
+    private final KeyframeTimeline mOnTimeline;
+    private final KeyframeTimeline mOffTimeline;
+
+    private Bitmap mOffIcon;
+    private Bitmap mOnIcon;
+    private Bitmap mIcon;
+    private boolean mIconsAcquired;
+
+    private MagicAnimation mOnAnimation;
+    private MagicAnimation mOffAnimation;
+    private float mRotation;
+    private float mScale = 1.0f;
+    private final Matrix mMatrix = new Matrix();
+    private final DirtyBounds mDirty = new DirtyBounds();
+
+    /**
+     * @param offRes      未点赞的图标
+     * @param onRes       已点赞的图标，可以和offRes相同
+     * @param onTimeline  点赞的动画
+     * @param offTimeline 取消点赞的动画
+     */
+    IconEffect(int offRes, int onRes, KeyframeTimeline onTimeline, KeyframeTimeline offTimeline) {
+        mOffRes = offRes;
+        mOnRes = onRes;
+        mOnTimeline = onTimeline;
+        mOffTimeline = offTimeline;
+    }
+
+    @Override
+    void onAttach(MagicVoteRenderer renderer) {
+        super.onAttach(renderer);
+        acquireIcons();
+    }
+
+    int getWidth() {
+        return mOffIcon.getWidth();
+    }
+
+    int getHeight() {
+        return mOffIcon.getHeight();
+    }
+
+    /**
+     * 从{@link IconCache}中获取共享的图标
+     */
+    private void acquireIcons() {
+        if (mIconsAcquired) {
+            return;
+        }
+        boolean on = mIcon != null && mIcon == mOnIcon;
+        mOffIcon = IconCache.acquire(mRenderer.getResources(), mOffRes);
+        mOnIcon = IconCache.acquire(mRenderer.getResources(), mOnRes);
+        mIcon = on ? mOnIcon : mOffIcon;
+        mIconsAcquired = true;
+    }
+
+    private void releaseIcons() {
+        if (!mIconsAcquired) {
+            return;
+        }
+        // 按acquire时得到的Bitmap释放，density变了也是原来的那一份
+        IconCache.release(mOffIcon);
+        IconCache.release(mOnIcon);
+        mIconsAcquired = false;
+    }
+
+    @Override
+    void onAttachedToWindow() {
+        acquireIcons();
+    }
+
+    @Override
+    void onDetachedFromWindow() {
+        if (mOnAnimation != null) {
+            if (mOnAnimation.isRunning()) {
+                mOnAnimation.end();
+            }
+            if (mOffAnimation.isRunning()) {
+                mOffAnimation.end();
+            }
+            mOnAnimation = null;
+            mOffAnimation = null;
+        }
+        releaseIcons();
+    }
+
+    @Override
+    void start(boolean on) {
+        // 大部分按钮不会被点击，动画在第一次使用时才创建
+        if (mOnAnimation == null) {
+            mOnAnimation = newAnimation(mOnTimeline, new TimelineListener(mOnTimeline));
+            mOffAnimation = newAnimation(mOffTimeline, new TimelineListener(mOffTimeline));
+        }
+        mIcon = on ? mOnIcon : mOffIcon;
+        mDirty.reset();
+        (on ? mOnAnimation : mOffAnimation).start();
+    }
+
+    @Override
+    boolean isRunning() {
+        return mOnAnimation != null && (mOnAnimation.isRunning() || mOffAnimation.isRunning());
+    }
+
+    @Override
+    void stop() {
+        if (mOnAnimation != null) {
+            mOnAnimation.reset();
+            mOffAnimation.reset();
+        }
+    }
+
+    @Override
+    void settle(boolean on) {
+        mIcon = on ? mOnIcon : mOffIcon;
+        mRotation = 0;
+        mScale = 1.0f;
+    }
+
+    @Override
+    void setMetrics(MagicMetrics metrics) {
+        if (mOnAnimation != null) {
+            mOnAnimation.setMetrics(metrics);
+            mOffAnimation.setMetrics(metrics);
+        }
+    }
+
+    @Override
+    void draw(Canvas canvas) {
+        float halfWidth = mIcon.getWidth() / 2f;
+        float halfHeight = mIcon.getHeight() / 2f;
+        mMatrix.setRotate(mRotation, halfWidth, halfHeight);
+        mMatrix.postScale(mScale, mScale, halfWidth, halfHeight);
+        mMatrix.postTranslate(mRenderer.getIconCenterX() - halfWidth, mRenderer.getIconCenterY() - halfHeight);
+        canvas.drawBitmap(mIcon, mMatrix, null);
+    }
+
+    /**
+     * 按时间线更新icon的角度和大小，只重绘icon旋转缩放后覆盖的区域
+     */
+    private class TimelineListener extends EffectListener {
+
+        private final KeyframeTimeline mTimeline;
+
+        TimelineListener(KeyframeTimeline timeline) {
+            mTimeline = timeline;
+        }
+
+        @Override
+        public void onAnimationUpdate(MagicAnimation animation) {
+            float time = animation.getPlayTime();
+            mRotation = mTimeline.getValue(MagicTimelines.CHANNEL_ROTATION, time);
+            mScale = mTimeline.getValue(MagicTimelines.CHANNEL_SCALE, time);
+            float halfSize = (float) Math.hypot(mIcon.getWidth(), mIcon.getHeight()) / 2 * mScale;
+            mDirty.invalidate(mRenderer.getFrameInvalidator(), mRenderer.getIconCenterX(), mRenderer.getIconCenterY(),
+                    halfSize);
+        }
+    }
+}
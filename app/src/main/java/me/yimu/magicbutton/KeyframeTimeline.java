@@ -0,0 +1,76 @@
+package me.yimu.magicbutton;
+
+/**
+ * 关键帧时间线，一个动画效果的所有属性（通道）共用一组关键帧时间
+ * <p>
+ * 第i个关键帧的easing作用于 [i-1, i] 这一段，第0个关键帧的easing不使用。
+ * 不依赖android，可以直接在JVM上测试。
+ */
+final class KeyframeTimeline {
+
+    static final int EASE_LINEAR = 0;
+    static final int EASE_DECELERATE = 1;
+    static final int EASE_ACCELERATE_DECELERATE = 2;
+
+    private final float[] mTimes;
+    private final int[] mEasings;
+    private final float[][] mValues;
+
+    /**
+     * @param times   关键帧时间(ms)，递增
+     * @param easings 每个关键帧对应的easing
+     * @param values  每个通道在各关键帧上的值
+     */
+    KeyframeTimeline(float[] times, int[] easings, float[]... values) {
+        if (times.length < 2 || easings.length != times.length) {
+            throw new IllegalArgumentException("timeline needs at least 2 keyframes");
+        }
+        for (float[] channel : values) {
+            if (channel.length != times.length) {
+                throw new IllegalArgumentException("channel size mismatch");
+            }
+        }
+        mTimes = times;
+        mEasings = easings;
+        mValues = values;
+    }
+
+    float getDuration() {
+        return mTimes[mTimes.length - 1];
+    }
+
+    /**
+     * 取某个通道在time(ms)时的值
+     */
+    float getValue(int channel, float time) {
+        float[] values = mValues[channel];
+        if (time <= mTimes[0]) {
+            return values[0];
+        }
+        int last = mTimes.length - 1;
+        if (time >= mTimes[last]) {
+            return values[last];
+        }
+        int i = 1;
+        while (time > mTimes[i]) {
+            i++;
+        }
+        float fraction = (time - mTimes[i - 1]) / (mTimes[i] - mTimes[i - 1]);
+        fraction = ease(mEasings[i], fraction);
+        return values[i - 1] + (values[i] - values[i - 1]) * fraction;
+    }
+
+    /**
+     * 与 LinearInterpolator / DecelerateInterpolator / AccelerateDecelerateInterpolator 的计算一致
+     */
+    static float ease(int easing, float input) {
+        switch (easing) {
+            case EASE_DECELERATE:
+                return 1.0f - (1.0f - input) * (1.0f - input);
+            case EASE_ACCELERATE_DECELERATE:
+                return (float) (Math.cos((input + 1) * Math.PI) / 2.0f) + 0.5f;
+            default:
+                return input;
+        }
+    }
+}
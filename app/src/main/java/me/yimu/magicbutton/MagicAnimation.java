@@ -0,0 +1,153 @@
+package me.yimu.magicbutton;
+
+/**
+ * 由{@link MagicAnimationDriver}驱动的一个动画效果，用来代替每个按钮各自的ValueAnimator
+ * <p>
+ * 和ValueAnimator一样，start之后的第一帧作为开始时间。
+ * 与ValueAnimator不同的是cancel只回调onAnimationCancel，不再回调onAnimationEnd。
+ */
+final class MagicAnimation {
+
+    interface Listener {
+        void onAnimationUpdate(MagicAnimation animation);
+
+        /**
+         * 正常播放结束，或者调用了{@link #end()}
+         */
+        void onAnimationEnd(MagicAnimation animation);
+
+        void onAnimationCancel(MagicAnimation animation);
+    }
+
+    private float mDuration;
+    private final int mEasing;
+    private final MagicAnimationDriver.Host mHost;
+    private final Listener mListener;
+
+    private boolean mRunning;
+    private long mStartTime = -1;
+    private float mPlayTime;
+    private float mFraction;
+    private long mLastFrameTimeNanos;
+    private MagicMetrics mMetrics;
+
+    /**
+     * @param duration 时长(ms)
+     * @param easing   {@link KeyframeTimeline}中的EASE_*，作用于{@link #getAnimatedFraction()}
+     * @param host     每帧推进完之后回调的host
+     * @param listener
+     */
+    MagicAnimation(float duration, int easing, MagicAnimationDriver.Host host, Listener listener) {
+        mDuration = duration;
+        mEasing = easing;
+        mHost = host;
+        mListener = listener;
+    }
+
+    /**
+     * 在下一次start时生效
+     */
+    void setDuration(float duration) {
+        if (!mRunning) {
+            mDuration = duration;
+        }
+    }
+
+    void start() {
+        mRunning = true;
+        mStartTime = -1;
+        mPlayTime = 0;
+        mFraction = 0;
+        MagicAnimationDriver.getInstance().add(this);
+    }
+
+    /**
+     * 直接跳到最后一帧并结束
+     */
+    void end() {
+        if (!mRunning) {
+            return;
+        }
+        update(mDuration);
+        finish();
+        // 不在帧回调中，直接让host处理重绘
+        if (mHost != null) {
+            mHost.onAnimationFrame();
+        }
+    }
+
+    void cancel() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        MagicAnimationDriver.getInstance().remove(this);
+        mListener.onAnimationCancel(this);
+    }
+
+    /**
+     * 直接停止，不回调listener，也不再推进到最后一帧
+     */
+    void reset() {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        MagicAnimationDriver.getInstance().remove(this);
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * 已播放的时间(ms)
+     */
+    float getPlayTime() {
+        return mPlayTime;
+    }
+
+    /**
+     * 经过easing之后的进度 0~1
+     */
+    float getAnimatedFraction() {
+        return mFraction;
+    }
+
+    MagicAnimationDriver.Host getHost() {
+        return mHost;
+    }
+
+    /**
+     * 统计相邻两帧的间隔，null为不统计
+     */
+    void setMetrics(MagicMetrics metrics) {
+        mMetrics = metrics;
+    }
+
+    void doFrame(long frameTimeNanos) {
+        long frameTime = frameTimeNanos / 1000000;
+        if (mStartTime < 0) {
+            mStartTime = frameTime;
+        } else if (mMetrics != null) {
+            mMetrics.recordFrameInterval(frameTimeNanos - mLastFrameTimeNanos);
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        update(Math.min(frameTime - mStartTime, mDuration));
+        if (mRunning && mPlayTime >= mDuration) {
+            finish();
+        }
+    }
+
+    private void update(float playTime) {
+        mPlayTime = playTime;
+        mFraction = KeyframeTimeline.ease(mEasing, mDuration > 0 ? playTime / mDuration : 1);
+        mListener.onAnimationUpdate(this);
+    }
+
+    private void finish() {
+        mRunning = false;
+        MagicAnimationDriver.getInstance().remove(this);
+        mListener.onAnimationEnd(this);
+    }
+}
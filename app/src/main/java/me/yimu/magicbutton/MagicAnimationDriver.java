@@ -0,0 +1,176 @@
+package me.yimu.magicbutton;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * 所有按钮动画共用的驱动
+ * <p>
+ * 同一个线程（同一个Choreographer）上的所有{@link MagicAnimation}由一个帧回调统一推进，
+ * 只有正在播放的动画才会注册进来。每帧推进完所有动画之后，再对每个{@link Host}回调一次，
+ * 由host把这一帧收集到的重绘区域合并成一次invalidate。
+ * 每帧的开销只和正在播放的动画数量有关。只能在有Looper的线程（主线程）上使用。
+ */
+final class MagicAnimationDriver {
+
+    /**
+     * 动画的宿主，一般是一个view
+     */
+    interface Host {
+        /**
+         * 这个host上的所有动画都已推进完本帧
+         */
+        void onAnimationFrame();
+    }
+
+    // Choreographer本身就是每个线程一个，driver也跟着线程走
+    private static final ThreadLocal<MagicAnimationDriver> sDriver = new ThreadLocal<>();
+
+    private final ArrayList<MagicAnimation> mAnimations = new ArrayList<>();
+    // 当前帧正在推进的动画，避免回调中start/cancel时修改mAnimations导致遍历出错
+    private final ArrayList<MagicAnimation> mFrameAnimations = new ArrayList<>();
+    private final ArrayList<Host> mFrameHosts = new ArrayList<>();
+    private FrameScheduler mScheduler;
+    private boolean mScheduled;
+
+    static MagicAnimationDriver getInstance() {
+        MagicAnimationDriver driver = sDriver.get();
+        if (driver == null) {
+            driver = new MagicAnimationDriver();
+            sDriver.set(driver);
+        }
+        return driver;
+    }
+
+    private MagicAnimationDriver() {
+        mScheduler = createScheduler();
+    }
+
+    private FrameScheduler createScheduler() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            return new ChoreographerScheduler(this);
+        } else {
+            return new HandlerScheduler(this);
+        }
+    }
+
+    /**
+     * 替换帧的来源，只用于测试：由测试自己控制时间调用{@link #doFrame(long)}
+     *
+     * @param scheduler null时恢复默认的Choreographer/Handler
+     */
+    void setFrameScheduler(FrameScheduler scheduler) {
+        mScheduler = scheduler != null ? scheduler : createScheduler();
+        mScheduled = false;
+    }
+
+    void add(MagicAnimation animation) {
+        if (!mAnimations.contains(animation)) {
+            mAnimations.add(animation);
+        }
+        scheduleFrame();
+    }
+
+    void remove(MagicAnimation animation) {
+        mAnimations.remove(animation);
+    }
+
+    private void scheduleFrame() {
+        if (mScheduled) {
+            return;
+        }
+        mScheduled = true;
+        mScheduler.postFrame();
+    }
+
+    /**
+     * 推进所有动画一帧
+     *
+     * @param frameTimeNanos 帧时间，与{@link System#nanoTime()}同一时间基准
+     */
+    void doFrame(long frameTimeNanos) {
+        mScheduled = false;
+        for (int i = 0, size = mAnimations.size(); i < size; i++) {
+            mFrameAnimations.add(mAnimations.get(i));
+        }
+        for (int i = 0, size = mFrameAnimations.size(); i < size; i++) {
+            MagicAnimation animation = mFrameAnimations.get(i);
+            // 可能已经被同一帧中前面的回调cancel掉
+            if (!animation.isRunning()) {
+                continue;
+            }
+            Host host = animation.getHost();
+            if (host != null && !mFrameHosts.contains(host)) {
+                mFrameHosts.add(host);
+            }
+            animation.doFrame(frameTimeNanos);
+        }
+        mFrameAnimations.clear();
+        for (int i = 0, size = mFrameHosts.size(); i < size; i++) {
+            mFrameHosts.get(i).onAnimationFrame();
+        }
+        mFrameHosts.clear();
+        if (!mAnimations.isEmpty()) {
+            scheduleFrame();
+        }
+    }
+
+    interface FrameScheduler {
+        /**
+         * 请求在下一帧调用{@link MagicAnimationDriver#doFrame(long)}
+         */
+        void postFrame();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class ChoreographerScheduler implements FrameScheduler, Choreographer.FrameCallback {
+
+        private final MagicAnimationDriver mDriver;
+        private final Choreographer mChoreographer = Choreographer.getInstance();
+
+        ChoreographerScheduler(MagicAnimationDriver driver) {
+            mDriver = driver;
+        }
+
+        @Override
+        public void postFrame() {
+            mChoreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mDriver.doFrame(frameTimeNanos);
+        }
+    }
+
+    /**
+     * API 16以下没有Choreographer，按固定间隔推进
+     */
+    private static class HandlerScheduler implements FrameScheduler, Runnable {
+
+        private static final long FRAME_DELAY = 16;
+
+        private final MagicAnimationDriver mDriver;
+        private final Handler mHandler = new Handler(Looper.myLooper());
+
+        HandlerScheduler(MagicAnimationDriver driver) {
+            mDriver = driver;
+        }
+
+        @Override
+        public void postFrame() {
+            mHandler.postDelayed(this, FRAME_DELAY);
+        }
+
+        @Override
+        public void run() {
+            mDriver.doFrame(SystemClock.uptimeMillis() * 1000000);
+        }
+    }
+}
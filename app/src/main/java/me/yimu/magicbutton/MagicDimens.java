@@ -0,0 +1,85 @@
+package me.yimu.magicbutton;
+
+/**
+ * 按钮用到的所有尺寸(px)，不依赖android，可以直接在JVM上测试
+ * <p>
+ * 同一个density和fontScale(scaledDensity)下只计算一次，所有按钮共用同一个实例。
+ * 配置变化后density或scaledDensity不同，下一次获取时重新计算，旧的实例不再使用。
+ * 只在创建按钮和修改设置时获取，绘制和测量不需要访问Resources。
+ * 只能在主线程调用，从Context获取见{@link UIUtils#getDimens(android.content.Context)}。
+ */
+final class MagicDimens {
+
+    private static MagicDimens sLast;
+
+    final float density;
+    final float scaledDensity;
+
+    // FrodoVoteButton
+    final int voteBorderRadius;
+    final int voteRippleStartRadius;
+    final int voteTextSize;
+    final int voteTextGap;
+
+    // FrodoVoteTextView
+    final int voteTextMinRadius;
+    final int voteTextMaxRadius;
+    final int voteTextPointRadius;
+
+    // FrodoLikeTextView
+    final int likeMinRadius;
+    final int likeMaxRadius;
+    final int likePointRadius;
+    final int likeTextSize;
+    final int likeTextOverlap;
+
+    // RippleButton
+    final int rippleBorderRadius;
+    final int rippleStartRadius;
+
+    // ReactionBarView
+    final int slotSpacing;
+
+    private MagicDimens(float density, float scaledDensity) {
+        this.density = density;
+        this.scaledDensity = scaledDensity;
+        voteBorderRadius = dp(2);
+        voteRippleStartRadius = dp(5);
+        voteTextSize = sp(12);
+        voteTextGap = dp(6);
+        voteTextMinRadius = dp(4);
+        voteTextMaxRadius = dp(12);
+        voteTextPointRadius = dp(1);
+        likeMinRadius = dp(6);
+        likeMaxRadius = dp(16);
+        likePointRadius = dp(1);
+        likeTextSize = sp(9);
+        likeTextOverlap = dp(6);
+        rippleBorderRadius = dp(3);
+        rippleStartRadius = dp(5);
+        slotSpacing = dp(20);
+    }
+
+    /**
+     * 和上一次的配置相同时直接返回上一次的实例
+     */
+    static MagicDimens of(float density, float scaledDensity) {
+        MagicDimens last = sLast;
+        if (last == null || last.density != density || last.scaledDensity != scaledDensity) {
+            last = new MagicDimens(density, scaledDensity);
+            sLast = last;
+        }
+        return last;
+    }
+
+    /**
+     * 和{@link UIUtils#dip2px(android.content.Context, float)}的取整方式一致
+     */
+    int dp(float dipValue) {
+        return (int) (dipValue * density + 0.5F);
+    }
+
+    int sp(float spValue) {
+        return (int) (spValue * scaledDensity + 0.5F);
+    }
+}
@@ -0,0 +1,87 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Canvas;
+
+/**
+ * {@link MagicVoteRenderer}的一个绘制效果，按添加的顺序绘制
+ * <p>
+ * 效果只负责自己的绘制和动画，状态机、数字和布局都在{@link MagicVoteRenderer}中。
+ * 切换状态时每个效果可以开始自己的动画，所有效果的动画都结束后renderer进入最终状态。
+ */
+abstract class MagicEffect {
+
+    MagicVoteRenderer mRenderer;
+
+    void onAttach(MagicVoteRenderer renderer) {
+        mRenderer = renderer;
+    }
+
+    void onAttachedToWindow() {
+    }
+
+    /**
+     * detach时直接结束正在进行的动画（保留点击结果），并释放动画对象和图标
+     */
+    void onDetachedFromWindow() {
+    }
+
+    void onSizeChanged(int w, int h) {
+    }
+
+    abstract void draw(Canvas canvas);
+
+    /**
+     * 开始点赞/取消点赞的动画
+     */
+    void start(boolean on) {
+    }
+
+    boolean isRunning() {
+        return false;
+    }
+
+    /**
+     * 直接停止动画，不回调
+     */
+    void stop() {
+    }
+
+    /**
+     * 进入最终状态
+     */
+    void settle(boolean on) {
+    }
+
+    void setMetrics(MagicMetrics metrics) {
+    }
+
+    /**
+     * 使用renderer的FrameInvalidator和统计创建动画
+     */
+    MagicAnimation newAnimation(float duration, int easing, MagicAnimation.Listener listener) {
+        MagicAnimation animation = new MagicAnimation(duration, easing, mRenderer.getFrameInvalidator(),
+                listener);
+        animation.setMetrics(mRenderer.getMetrics());
+        return animation;
+    }
+
+    MagicAnimation newAnimation(KeyframeTimeline timeline, MagicAnimation.Listener listener) {
+        return newAnimation(timeline.getDuration(), KeyframeTimeline.EASE_LINEAR, listener);
+    }
+
+    /**
+     * 动画结束时通知renderer，取消时不做处理（{@link MagicVoteRenderer#cancelAll()}自己恢复状态）
+     */
+    abstract class EffectListener implements MagicAnimation.Listener {
+
+        @Override
+        public void onAnimationEnd(MagicAnimation animation) {
+            mRenderer.onEffectAnimationEnd();
+        }
+
+        @Override
+        public void onAnimationCancel(MagicAnimation animation) {
+
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package me.yimu.magicbutton;
+
+import java.util.Arrays;
+
+/**
+ * 固定分桶的耗时直方图，record只做一次查找和几次加法，不分配内存
+ * <p>
+ * 只能在同一个线程（主线程）中使用。不依赖android，可以直接在JVM上测试。
+ */
+public final class MagicHistogram {
+
+    // 每个桶的上界(ns)，最后还有一个没有上界的桶
+    private final long[] mBounds;
+    private final long[] mCounts;
+    private long mCount;
+    private long mSum;
+    private long mMax;
+
+    /**
+     * @param bounds 各个桶的上界(ns)，递增
+     */
+    MagicHistogram(long[] bounds) {
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds must be increasing");
+            }
+        }
+        mBounds = bounds;
+        mCounts = new long[bounds.length + 1];
+    }
+
+    void record(long nanos) {
+        int i = 0;
+        while (i < mBounds.length && nanos > mBounds[i]) {
+            i++;
+        }
+        mCounts[i]++;
+        mCount++;
+        mSum += nanos;
+        if (nanos > mMax) {
+            mMax = nanos;
+        }
+    }
+
+    void reset() {
+        Arrays.fill(mCounts, 0);
+        mCount = 0;
+        mSum = 0;
+        mMax = 0;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(mBounds.clone(), mCounts.clone(), mCount, mSum, mMax);
+    }
+
+    /**
+     * 某一时刻直方图的拷贝，可以交给其他线程上报
+     */
+    public static final class Snapshot {
+        /**
+         * 各个桶的上界(ns)
+         */
+        public final long[] bounds;
+        /**
+         * 各个桶的数量，比bounds多一个，最后一个为超过所有上界的数量
+         */
+        public final long[] counts;
+        public final long count;
+        public final long sum;
+        public final long max;
+
+        Snapshot(long[] bounds, long[] counts, long count, long sum, long max) {
+            this.bounds = bounds;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getMean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * 分位数所在桶的上界(ns)，落在最后一个桶时返回max
+         *
+         * @param percentile 0~100
+         */
+        public long getPercentile(float percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(count * percentile / 100f);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target && counts[i] > 0) {
+                    return i < bounds.length ? bounds[i] : max;
+                }
+            }
+            return max;
+        }
+    }
+}
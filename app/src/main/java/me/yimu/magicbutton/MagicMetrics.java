@@ -0,0 +1,85 @@
+package me.yimu.magicbutton;
+
+/**
+ * 按钮的性能统计，通过各个按钮的setMetrics开启，默认不统计
+ * <p>
+ * 记录onMeasure、绘制的耗时，以及动画相邻两帧的间隔。同一类按钮可以共用一个实例，统计的是所有按钮的总和。
+ * 只能在主线程调用。
+ */
+public final class MagicMetrics {
+
+    private static final long US = 1000;
+    private static final long MS = 1000 * US;
+
+    static final long[] DURATION_BOUNDS = {
+            50 * US, 100 * US, 250 * US, 500 * US, MS, 2 * MS, 4 * MS, 8 * MS, 16 * MS};
+    static final long[] FRAME_INTERVAL_BOUNDS = {
+            8 * MS, 12 * MS, 17 * MS, 20 * MS, 25 * MS, 34 * MS, 50 * MS, 100 * MS};
+
+    public interface Listener {
+        /**
+         * {@link #report()}时回调，回调之后统计会清零
+         */
+        void onReport(MagicMetrics metrics, Report report);
+    }
+
+    public static final class Report {
+        public final MagicHistogram.Snapshot measure;
+        public final MagicHistogram.Snapshot draw;
+        public final MagicHistogram.Snapshot frameInterval;
+
+        Report(MagicHistogram.Snapshot measure, MagicHistogram.Snapshot draw,
+               MagicHistogram.Snapshot frameInterval) {
+            this.measure = measure;
+            this.draw = draw;
+            this.frameInterval = frameInterval;
+        }
+    }
+
+    private final String mName;
+    private final MagicHistogram mMeasure = new MagicHistogram(DURATION_BOUNDS);
+    private final MagicHistogram mDraw = new MagicHistogram(DURATION_BOUNDS);
+    private final MagicHistogram mFrameInterval = new MagicHistogram(FRAME_INTERVAL_BOUNDS);
+    private Listener mListener;
+
+    public MagicMetrics(String name) {
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public void setListener(Listener listener) {
+        mListener = listener;
+    }
+
+    public Report snapshot() {
+        return new Report(mMeasure.snapshot(), mDraw.snapshot(), mFrameInterval.snapshot());
+    }
+
+    /**
+     * 把当前的统计交给listener并清零，例如每隔一段时间或者页面退出时调用
+     */
+    public void report() {
+        Report report = snapshot();
+        mMeasure.reset();
+        mDraw.reset();
+        mFrameInterval.reset();
+        if (mListener != null) {
+            mListener.onReport(this, report);
+        }
+    }
+
+    void recordMeasure(long nanos) {
+        mMeasure.record(nanos);
+    }
+
+    void recordDraw(long nanos) {
+        mDraw.record(nanos);
+    }
+
+    void recordFrameInterval(long nanos) {
+        mFrameInterval.record(nanos);
+    }
+}
@@ -0,0 +1,37 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Paint;
+
+/**
+ * 所有{@link MagicEffect}共用的Paint，只能在主线程使用
+ * <p>
+ * 绘制都在主线程串行进行，每个效果绘制前设置好自己用到的属性即可，不需要每个按钮各自持有Paint。
+ */
+final class MagicPaints {
+
+    /**
+     * 填充，用于背景
+     */
+    static final Paint FILL = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * 描边，用于边框
+     */
+    static final Paint STROKE = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * 圆头的点，直径为strokeWidth，用于放射点
+     */
+    static final Paint POINTS = new Paint(Paint.ANTI_ALIAS_FLAG);
+    /**
+     * 数字
+     */
+    static final Paint TEXT = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    static {
+        FILL.setStyle(Paint.Style.FILL);
+        STROKE.setStyle(Paint.Style.STROKE);
+        POINTS.setStrokeCap(Paint.Cap.ROUND);
+    }
+
+    private MagicPaints() {
+    }
+}
@@ -0,0 +1,44 @@
+package me.yimu.magicbutton;
+
+import static me.yimu.magicbutton.KeyframeTimeline.EASE_DECELERATE;
+import static me.yimu.magicbutton.KeyframeTimeline.EASE_LINEAR;
+
+/**
+ * 各个按钮动画效果的关键帧定义，所有实例共享
+ */
+final class MagicTimelines {
+
+    // icon动画的通道
+    static final int CHANNEL_ROTATION = 0;
+    static final int CHANNEL_SCALE = 1;
+
+    /**
+     * 点赞icon抖动
+     * 1: 角度从0-20，时间50ms
+     * 2: 角度从20到-20，大小从1.0到1.3，时间200ms，减速运动
+     * 3: 角度从-20到0，大小从1.3到1.0，时间100ms
+     * 4: 大小从1.0到1.1，时间100ms
+     * 5: 大小从1.1到1.0，时间100ms
+     */
+    static final KeyframeTimeline VOTE_ICON = new KeyframeTimeline(
+            new float[]{0, 50, 250, 350, 450, 550},
+            new int[]{EASE_LINEAR, EASE_LINEAR, EASE_DECELERATE, EASE_LINEAR, EASE_LINEAR, EASE_LINEAR},
+            new float[]{0, 20f, -20f, 0, 0, 0},
+            new float[]{1.0f, 1.0f, 1.3f, 1.0f, 1.1f, 1.0f});
+
+    /**
+     * 取消赞icon / 喜欢icon缩放
+     * 1: 大小从1.0到1.2，时间200ms
+     * 2: 大小从1.2到1.0，时间100ms
+     * 3: 大小从1.0到1.1，时间100ms
+     * 4: 大小从1.1到1.0，时间100ms
+     */
+    static final KeyframeTimeline SCALE_ICON = new KeyframeTimeline(
+            new float[]{0, 200, 300, 400, 500},
+            new int[]{EASE_LINEAR, EASE_LINEAR, EASE_LINEAR, EASE_LINEAR, EASE_LINEAR},
+            new float[]{0, 0, 0, 0, 0},
+            new float[]{1.0f, 1.2f, 1.0f, 1.1f, 1.0f});
+
+    private MagicTimelines() {
+    }
+}
@@ -0,0 +1,281 @@
+package me.yimu.magicbutton;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * 点赞按钮的Drawable版本，样式和动画与对应的View相同，不需要单独的View
+ * <p>
+ * 可以作为compound drawable、背景或者画在已有的TextView里，减少列表每一行的View数量和层级。
+ * 没有点击处理，由调用方调用{@link #toggle()}切换状态。
+ * <p>
+ * 数字位数变化时intrinsic宽度会变，drawable不会自己修改bounds，
+ * 需要调用方重新设置bounds（比如重新setCompoundDrawables），见{@link OnToggleListener}。
+ * 作为背景时动画只重绘变化的区域（API 21+），其他情况重绘整个drawable。
+ * <p>
+ * 图标在创建时从{@link IconCache}获取，宿主View必须在自己的onDetachedFromWindow中调用{@link #onDetachedFromWindow()}
+ * 释放图标并结束动画，重新attach时调用{@link #onAttachedToWindow()}。
+ * API 24以下的View不会对drawable调用setVisible(false)，不能依赖setVisible。
+ */
+public class MagicVoteDrawable extends Drawable {
+
+    public interface OnToggleListener {
+        /**
+         * 调用{@link #toggle()}切换状态后回调
+         *
+         * @param on 点赞/取消点赞
+         */
+        void onToggle(MagicVoteDrawable drawable, boolean on);
+
+        /**
+         * 数字位数变化，intrinsic宽度变了
+         */
+        void onIntrinsicSizeChanged(MagicVoteDrawable drawable);
+    }
+
+    private final MagicVoteRenderer mRenderer;
+    private final Rect mDirtyBounds = new Rect();
+    private OnToggleListener mListener;
+    private int mAlpha = 255;
+    // 创建时已经获取了图标
+    private boolean mAttached = true;
+
+    /**
+     * 带边框的点赞按钮，同{@link FrodoVoteButton}
+     */
+    public static MagicVoteDrawable createVoteButton(Context context) {
+        MagicVoteDrawable drawable = new MagicVoteDrawable(context);
+        FrodoVoteButton.applyStyle(context, drawable.mRenderer);
+        return drawable;
+    }
+
+    /**
+     * 不带边框的点赞按钮，同{@link FrodoVoteTextView}
+     */
+    public static MagicVoteDrawable createVoteText(Context context) {
+        MagicVoteDrawable drawable = new MagicVoteDrawable(context);
+        FrodoVoteTextView.applyStyle(context, drawable.mRenderer);
+        return drawable;
+    }
+
+    /**
+     * 喜欢按钮，同{@link FrodoLikeTextView}
+     */
+    public static MagicVoteDrawable createLike(Context context) {
+        MagicVoteDrawable drawable = new MagicVoteDrawable(context);
+        FrodoLikeTextView.applyStyle(context, drawable.mRenderer);
+        return drawable;
+    }
+
+    private MagicVoteDrawable(Context context) {
+        mRenderer = new MagicVoteRenderer(context.getResources(), new RendererCallback());
+    }
+
+    public void setOnToggleListener(OnToggleListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 切换点赞状态并播放动画，同点击按钮
+     */
+    public void toggle() {
+        mRenderer.toggle();
+    }
+
+    /**
+     * 动画中按动画结束后的状态算
+     */
+    public boolean isOn() {
+        return mRenderer.isOn();
+    }
+
+    public int getCount() {
+        return mRenderer.getCount();
+    }
+
+    public void setCount(int count) {
+        mRenderer.setCount(count);
+    }
+
+    /**
+     * 是否可以切换，false时{@link #toggle()}不起作用
+     */
+    public void setToggleable(boolean toggleable) {
+        mRenderer.setToggleable(toggleable);
+    }
+
+    /**
+     * 绑定数据，用于RecyclerView等复用的场景，不会触发OnToggleListener.onToggle
+     *
+     * @param count   数字，已经包含了on
+     * @param on
+     * @param animate 状态有变化时是否播放动画
+     */
+    public void bind(int count, boolean on, boolean animate) {
+        mRenderer.bindState(count, on, animate);
+    }
+
+    /**
+     * 被回收时调用，直接停止所有动画并停在最终状态，不回调
+     */
+    public void onRecycled() {
+        mRenderer.onRecycled();
+    }
+
+    /**
+     * 取消投票，恢复之前的状态
+     */
+    public void cancelAll() {
+        mRenderer.cancelAll();
+    }
+
+    /**
+     * 开启性能统计，null为关闭，见{@link MagicMetrics}
+     */
+    public void setMetrics(MagicMetrics metrics) {
+        mRenderer.setMetrics(metrics);
+    }
+
+    /**
+     * 内容区域四周的空白，改变intrinsic大小
+     */
+    public void setPadding(int left, int top, int right, int bottom) {
+        mRenderer.setPadding(left, top, right, bottom);
+        mRenderer.measureWidth();
+        invalidateSelf();
+    }
+
+    /**
+     * 宿主View attach时调用，重新获取图标。重复调用没有影响
+     */
+    public void onAttachedToWindow() {
+        if (!mAttached) {
+            mAttached = true;
+            mRenderer.onAttachedToWindow();
+        }
+    }
+
+    /**
+     * 宿主View detach时调用，和View的detach一样直接结束动画（保留点击结果）并释放图标。重复调用没有影响
+     */
+    public void onDetachedFromWindow() {
+        if (mAttached) {
+            mAttached = false;
+            mRenderer.onDetachedFromWindow();
+        }
+    }
+
+    /**
+     * API 24+宿主View不可见或者detach时会调用setVisible(false)，这时也当作detach
+     */
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (visible) {
+            onAttachedToWindow();
+        } else {
+            onDetachedFromWindow();
+        }
+        return changed;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        mRenderer.setSize(bounds.width(), bounds.height());
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mRenderer.measureWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mRenderer.measureHeight();
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        Rect bounds = getBounds();
+        int saveCount = -1;
+        if (mAlpha < 255) {
+            // 各个效果共用MagicPaints，透明度只能整体加一层
+            saveCount = canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom,
+                    mAlpha, Canvas.ALL_SAVE_FLAG);
+        }
+        canvas.translate(bounds.left, bounds.top);
+        mRenderer.draw(canvas);
+        canvas.translate(-bounds.left, -bounds.top);
+        if (saveCount >= 0) {
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (alpha != mAlpha) {
+            mAlpha = alpha;
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return mAlpha;
+    }
+
+    /**
+     * 不支持，各个效果有自己的颜色
+     */
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    /**
+     * 动画帧只需要重绘的区域，View按这个区域invalidate背景（API 21+）
+     */
+    @Override
+    public Rect getDirtyBounds() {
+        return mDirtyBounds.isEmpty() ? getBounds() : mDirtyBounds;
+    }
+
+    private class RendererCallback implements MagicVoteRenderer.Callback {
+
+        @Override
+        public void invalidateRenderer(Rect dirty) {
+            if (dirty != null) {
+                Rect bounds = getBounds();
+                mDirtyBounds.set(dirty);
+                mDirtyBounds.offset(bounds.left, bounds.top);
+            }
+            invalidateSelf();
+            mDirtyBounds.setEmpty();
+        }
+
+        @Override
+        public void requestRendererLayout() {
+            // 没有测量过程，记下新的宽度，下次按它判断是否变化
+            mRenderer.measureWidth();
+            invalidateSelf();
+            if (mListener != null) {
+                mListener.onIntrinsicSizeChanged(MagicVoteDrawable.this);
+            }
+        }
+
+        @Override
+        public void onRendererToggle(boolean on) {
+            if (mListener != null) {
+                mListener.onToggle(MagicVoteDrawable.this, on);
+            }
+        }
+    }
+}
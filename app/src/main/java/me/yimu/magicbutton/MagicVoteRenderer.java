@@ -0,0 +1,386 @@
+package me.yimu.magicbutton;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import java.util.ArrayList;
+
+/**
+ * 点赞类按钮共用的绘制流程，不依赖View，可以放在View、Drawable或者多个按钮合成的View中
+ * <p>
+ * 左边是正方形的图标区域，右边是数字。状态机、数字、测量和绘制都在这里，
+ * 具体的样式由添加的{@link MagicEffect}组合而成（边框水波纹、icon抖动、放射点、数字），
+ * 所有效果共用同一个{@link FrameInvalidator}、{@link MagicPaints}和{@link MagicAnimationDriver}。
+ * <p>
+ * 坐标都相对于renderer自己的左上角，宿主负责平移Canvas和转换重绘区域。
+ */
+final class MagicVoteRenderer implements FrameInvalidator.Target {
+
+    static final int STATE_OFF = 0; // 未点赞
+    static final int STATE_TURNING_ON = 1; // 点赞中
+    static final int STATE_ON = 2; // 已点赞
+    static final int STATE_TURNING_OFF = 3; // 取消赞中
+
+    /**
+     * 宿主的回调
+     */
+    interface Callback {
+        /**
+         * 重绘
+         *
+         * @param dirty 需要重绘的区域，null为全部
+         */
+        void invalidateRenderer(Rect dirty);
+
+        /**
+         * 数字变化后需要的宽度变了
+         */
+        void requestRendererLayout();
+
+        /**
+         * 点击切换状态后调用，用于通知listener
+         */
+        void onRendererToggle(boolean on);
+    }
+
+    private final Resources mResources;
+    private final Callback mCallback;
+    private final ArrayList<MagicEffect> mEffects = new ArrayList<>(4);
+    private final FrameInvalidator mFrameInvalidator = new FrameInvalidator(this);
+    private MagicMetrics mMetrics;
+
+    private int mState = STATE_OFF;
+    private int mCount;
+    private boolean mToggleable = true;
+
+    private CountEffect mCountEffect;
+    private int mIconSlotSize;
+    private int mTextGap;
+    private int mPaddingLeft;
+    private int mPaddingTop;
+    private int mPaddingRight;
+    private int mPaddingBottom;
+    private int mWidth;
+    private int mHeight;
+    private int mMeasuredContentWidth = -1;
+
+    MagicVoteRenderer(Resources resources, Callback callback) {
+        mResources = resources;
+        mCallback = callback;
+    }
+
+    /**
+     * 按添加的顺序绘制
+     */
+    void addEffect(MagicEffect effect) {
+        mEffects.add(effect);
+        effect.onAttach(this);
+    }
+
+    /**
+     * 数字效果，同时用于测量
+     */
+    void addCountEffect(CountEffect effect) {
+        mCountEffect = effect;
+        addEffect(effect);
+    }
+
+    /**
+     * @param iconSlotSize 图标区域的边长
+     * @param textGap      数字和图标区域的间距，可以为负数
+     */
+    void setLayout(int iconSlotSize, int textGap) {
+        mIconSlotSize = iconSlotSize;
+        mTextGap = textGap;
+    }
+
+    void setPadding(int left, int top, int right, int bottom) {
+        mPaddingLeft = left;
+        mPaddingTop = top;
+        mPaddingRight = right;
+        mPaddingBottom = bottom;
+    }
+
+    /**
+     * 宿主的尺寸确定之后调用
+     */
+    void setSize(int width, int height) {
+        if (width == mWidth && height == mHeight) {
+            return;
+        }
+        mWidth = width;
+        mHeight = height;
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            mEffects.get(i).onSizeChanged(width, height);
+        }
+    }
+
+    Resources getResources() {
+        return mResources;
+    }
+
+    int getWidth() {
+        return mWidth;
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    float getIconCenterX() {
+        return mPaddingLeft + mIconSlotSize / 2f;
+    }
+
+    float getIconCenterY() {
+        return mHeight / 2f;
+    }
+
+    float getTextX() {
+        return mPaddingLeft + mIconSlotSize + mTextGap;
+    }
+
+    FrameInvalidator getFrameInvalidator() {
+        return mFrameInvalidator;
+    }
+
+    MagicMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    int getState() {
+        return mState;
+    }
+
+    /**
+     * 进入最终状态时所有效果停在最终的样子
+     */
+    void setState(int state) {
+        mState = state;
+        if (state == STATE_OFF || state == STATE_ON) {
+            for (int i = 0, size = mEffects.size(); i < size; i++) {
+                mEffects.get(i).settle(state == STATE_ON);
+            }
+        }
+        mCallback.invalidateRenderer(null);
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    void setCount(int count) {
+        mCount = count;
+        onCountChanged();
+    }
+
+    void setToggleable(boolean toggleable) {
+        mToggleable = toggleable;
+    }
+
+    boolean isToggleable() {
+        return mToggleable;
+    }
+
+    /**
+     * 动画中按动画结束后的状态算
+     */
+    boolean isOn() {
+        return mState == STATE_ON || mState == STATE_TURNING_ON;
+    }
+
+    /**
+     * 开启性能统计，null为关闭，见{@link MagicMetrics}
+     *
+     * @param metrics 可以多个按钮共用
+     */
+    void setMetrics(MagicMetrics metrics) {
+        mMetrics = metrics;
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            mEffects.get(i).setMetrics(metrics);
+        }
+    }
+
+    /**
+     * 绑定数据，用于RecyclerView等复用的场景
+     * <p>
+     * 先直接停止正在进行的动画（不回调，不修改数字），再设置为最终状态，不会触发listener。
+     * animate为true并且状态有变化时播放点赞/取消点赞的动画。
+     *
+     * @param count   数字，已经包含了on
+     * @param on
+     * @param animate
+     */
+    void bindState(int count, boolean on, boolean animate) {
+        boolean changed = on != isOn();
+        stopAnimations();
+        mCount = count;
+        if (animate && changed) {
+            if (on) {
+                mState = STATE_TURNING_ON;
+                startVoteAnimation();
+            } else {
+                mState = STATE_TURNING_OFF;
+                startUnVoteAnimation();
+            }
+        } else {
+            setState(on ? STATE_ON : STATE_OFF);
+        }
+        onCountChanged();
+    }
+
+    /**
+     * 被回收时调用，直接停止所有动画并停在最终状态，不回调
+     */
+    void onRecycled() {
+        stopAnimations();
+        setState(isOn() ? STATE_ON : STATE_OFF);
+    }
+
+    /**
+     * 停止所有动画，和{@link #cancelAll()}不同，不回调也不恢复数字
+     */
+    private void stopAnimations() {
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            mEffects.get(i).stop();
+        }
+    }
+
+    /**
+     * 取消投票，恢复之前的状态
+     */
+    void cancelAll() {
+        if (mState == STATE_TURNING_ON) {
+            stopAnimations();
+            mCount -= 1;
+            setState(STATE_OFF);
+            onCountChanged();
+        } else if (mState == STATE_TURNING_OFF) {
+            stopAnimations();
+            mCount += 1;
+            setState(STATE_ON);
+            onCountChanged();
+        }
+    }
+
+    void startVoteAnimation() {
+        startAnimations(true);
+    }
+
+    void startUnVoteAnimation() {
+        startAnimations(false);
+    }
+
+    private void startAnimations(boolean on) {
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            mEffects.get(i).start(on);
+        }
+        // 没有效果需要动画时直接进入最终状态
+        onEffectAnimationEnd();
+    }
+
+    /**
+     * 所有效果的动画都结束后进入最终状态
+     */
+    void onEffectAnimationEnd() {
+        if (mState != STATE_TURNING_ON && mState != STATE_TURNING_OFF) {
+            return;
+        }
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            if (mEffects.get(i).isRunning()) {
+                return;
+            }
+        }
+        setState(mState == STATE_TURNING_ON ? STATE_ON : STATE_OFF);
+    }
+
+    /**
+     * 点击，切换状态并播放动画
+     */
+    void toggle() {
+        if (!mToggleable) {
+            return;
+        }
+        if (mState == STATE_OFF) {
+            mState = STATE_TURNING_ON;
+            mCount += 1;
+            onCountChanged();
+            startVoteAnimation();
+            mCallback.onRendererToggle(true);
+        } else if (mState == STATE_ON) {
+            mState = STATE_TURNING_OFF;
+            mCount -= 1;
+            onCountChanged();
+            startUnVoteAnimation();
+            mCallback.onRendererToggle(false);
+        }
+    }
+
+    void onAttachedToWindow() {
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            mEffects.get(i).onAttachedToWindow();
+        }
+    }
+
+    void onDetachedFromWindow() {
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            mEffects.get(i).onDetachedFromWindow();
+        }
+    }
+
+    void draw(Canvas canvas) {
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        for (int i = 0, size = mEffects.size(); i < size; i++) {
+            mEffects.get(i).draw(canvas);
+        }
+        if (mMetrics != null) {
+            mMetrics.recordDraw(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 只重绘renderer范围内的部分
+     */
+    @Override
+    public void invalidateFrame(Rect dirty) {
+        if (dirty.intersect(0, 0, mWidth, mHeight)) {
+            mCallback.invalidateRenderer(dirty);
+        }
+    }
+
+    /**
+     * 不受宿主限制时需要的宽度
+     */
+    int measureWidth() {
+        mMeasuredContentWidth = measureContentWidth();
+        return mMeasuredContentWidth;
+    }
+
+    private int measureContentWidth() {
+        int textWidth = mCountEffect != null ? mCountEffect.measureWidth(mCount) : 0;
+        int result = mPaddingLeft + mIconSlotSize + mPaddingRight;
+        if (textWidth > 0) {
+            result += mTextGap + textWidth;
+        }
+        return result;
+    }
+
+    /**
+     * 不受宿主限制时需要的高度
+     */
+    int measureHeight() {
+        int textHeight = mCountEffect != null ? mCountEffect.measureHeight() : 0;
+        return Math.max(textHeight + mPaddingTop + mPaddingBottom, mIconSlotSize);
+    }
+
+    /**
+     * 数字变化后，只有需要的宽度变化时才重新layout，否则只重绘
+     */
+    private void onCountChanged() {
+        if (mMeasuredContentWidth < 0 || measureContentWidth() != mMeasuredContentWidth) {
+            mCallback.requestRendererLayout();
+        } else {
+            mCallback.invalidateRenderer(null);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package me.yimu.magicbutton;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * 点赞类按钮的View
+ * <p>
+ * 状态机、数字、测量和绘制都在{@link MagicVoteRenderer}中，这里只负责View的生命周期、点击和layout。
+ * 同样的样式不需要单独的View时见{@link MagicVoteDrawable}。
+ */
+public abstract class MagicVoteView extends View implements View.OnClickListener {
+
+    private final MagicVoteRenderer mRenderer;
+    private MagicMetrics mMetrics;
+
+    public MagicVoteView(Context context) {
+        this(context, null);
+    }
+
+    public MagicVoteView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public MagicVoteView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mRenderer = new MagicVoteRenderer(getResources(), new RendererCallback());
+        setOnClickListener(this);
+    }
+
+    /**
+     * 子类在这里添加效果和设置布局
+     */
+    MagicVoteRenderer getRenderer() {
+        return mRenderer;
+    }
+
+    int getState() {
+        return mRenderer.getState();
+    }
+
+    void setState(int state) {
+        mRenderer.setState(state);
+    }
+
+    int getCount() {
+        return mRenderer.getCount();
+    }
+
+    void setCount(int count) {
+        mRenderer.setCount(count);
+    }
+
+    void setToggleable(boolean toggleable) {
+        mRenderer.setToggleable(toggleable);
+    }
+
+    /**
+     * 动画中按动画结束后的状态算
+     */
+    boolean isOn() {
+        return mRenderer.isOn();
+    }
+
+    /**
+     * 点击切换状态后调用，用于通知listener
+     */
+    protected abstract void onToggle(boolean on);
+
+    /**
+     * 开启性能统计，null为关闭，见{@link MagicMetrics}
+     *
+     * @param metrics 可以多个按钮共用
+     */
+    public void setMetrics(MagicMetrics metrics) {
+        mMetrics = metrics;
+        mRenderer.setMetrics(metrics);
+    }
+
+    /**
+     * 绑定数据，用于RecyclerView等复用的场景，见{@link MagicVoteRenderer#bindState(int, boolean, boolean)}
+     */
+    void bindState(int count, boolean on, boolean animate) {
+        mRenderer.bindState(count, on, animate);
+    }
+
+    /**
+     * 被回收时调用，直接停止所有动画并停在最终状态，不回调
+     */
+    public void onRecycled() {
+        mRenderer.onRecycled();
+    }
+
+    /**
+     * 取消投票，恢复之前的状态
+     */
+    public void cancelAll() {
+        mRenderer.cancelAll();
+    }
+
+    public void startVoteAnimation() {
+        mRenderer.startVoteAnimation();
+    }
+
+    public void startUnVoteAnimation() {
+        mRenderer.startUnVoteAnimation();
+    }
+
+    @Override
+    public void onClick(View v) {
+        mRenderer.toggle();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mRenderer.onAttachedToWindow();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mRenderer.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mRenderer.setSize(w, h);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        mRenderer.draw(canvas);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        mRenderer.setPadding(getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom());
+        setMeasuredDimension(measureWidth(widthMeasureSpec),
+                measureHeight(heightMeasureSpec));
+        if (mMetrics != null) {
+            mMetrics.recordMeasure(System.nanoTime() - start);
+        }
+    }
+
+    private int measureWidth(int measureSpec) {
+        int result = 0;
+        int specMode = MeasureSpec.getMode(measureSpec);
+        int specSize = MeasureSpec.getSize(measureSpec);
+
+        int contentWidth = mRenderer.measureWidth();
+        if (specMode == MeasureSpec.EXACTLY) {
+            // We were told how big to be
+            result = specSize;
+        } else {
+            result = contentWidth;
+            if (specMode == MeasureSpec.AT_MOST) {
+                // Respect AT_MOST value if that was what is called for by measureSpec
+                result = Math.min(result, specSize);
+            }
+        }
+
+        return result;
+    }
+
+    private int measureHeight(int measureSpec) {
+        int result = 0;
+        int specMode = MeasureSpec.getMode(measureSpec);
+        int specSize = MeasureSpec.getSize(measureSpec);
+
+        if (specMode == MeasureSpec.EXACTLY) {
+            // We were told how big to be
+            result = specSize;
+        } else {
+            result = mRenderer.measureHeight();
+            if (specMode == MeasureSpec.AT_MOST) {
+                // Respect AT_MOST value if that was what is called for by measureSpec
+                result = Math.min(result, specSize);
+            }
+        }
+        return result;
+    }
+
+    private class RendererCallback implements MagicVoteRenderer.Callback {
+
+        @Override
+        public void invalidateRenderer(Rect dirty) {
+            if (dirty == null) {
+                invalidate();
+            } else {
+                invalidate(dirty);
+            }
+        }
+
+        @Override
+        public void requestRendererLayout() {
+            requestLayout();
+        }
+
+        @Override
+        public void onRendererToggle(boolean on) {
+            onToggle(on);
+        }
+    }
+}
@@ -55,6 +55,13 @@ public class MainActivity extends AppCompatActivity
 
             }
         });
+
+        ReactionBarView bar = (ReactionBarView) findViewById(R.id.reaction_bar);
+        int vote = bar.addSlot(ReactionBarView.STYLE_VOTE_BUTTON);
+        int padding = UIUtils.dip2px(this, 10);
+        bar.setSlotPadding(vote, padding, 0, padding, 0);
+        bar.addSlot(ReactionBarView.STYLE_VOTE_TEXT);
+        bar.addSlot(ReactionBarView.STYLE_LIKE);
     }
 
     @Override
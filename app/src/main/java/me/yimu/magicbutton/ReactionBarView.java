@@ -0,0 +1,433 @@
+package me.yimu.magicbutton;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.Button;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个View里横向排列多个点赞类按钮，用于评论等一行有好几个按钮的列表
+ * <p>
+ * 每个按钮是一个{@link MagicVoteRenderer}，样式和单独的按钮View相同。
+ * 点击由这里按位置分发给对应的按钮，动画只重绘对应按钮里变化的区域，
+ * 绘制时跳过不在重绘区域内的按钮。一行只需要一个View，省掉每个按钮的measure/layout。
+ * <p>
+ * 每个按钮是一个虚拟的无障碍节点（{@link ExploreByTouchHelper}），TalkBack可以分别聚焦和点击。
+ */
+public class ReactionBarView extends View {
+
+    /**
+     * 带边框和水波纹的点赞按钮，同{@link FrodoVoteButton}
+     */
+    public static final int STYLE_VOTE_BUTTON = 0;
+    /**
+     * 不带边框的点赞按钮，同{@link FrodoVoteTextView}
+     */
+    public static final int STYLE_VOTE_TEXT = 1;
+    /**
+     * 喜欢按钮，同{@link FrodoLikeTextView}
+     */
+    public static final int STYLE_LIKE = 2;
+
+    public interface OnReactionListener {
+        /**
+         * 点击切换状态后回调
+         *
+         * @param slot {@link #addSlot(int)}返回的位置
+         * @param on   点赞/取消点赞
+         */
+        void onReaction(ReactionBarView view, int slot, boolean on);
+    }
+
+    private final ArrayList<Slot> mSlots = new ArrayList<>(4);
+    private final Rect mDirty = new Rect();
+    private int mSlotSpacing;
+    private int mPressedSlot = -1;
+    private OnReactionListener mListener;
+    private MagicMetrics mMetrics;
+    private final SlotAccessibilityHelper mAccessibilityHelper;
+
+    public ReactionBarView(Context context) {
+        this(context, null);
+    }
+
+    public ReactionBarView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ReactionBarView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        // 默认和content_main里按钮之间的间距一致
+        mSlotSpacing = UIUtils.getDimens(context).slotSpacing;
+        mAccessibilityHelper = new SlotAccessibilityHelper(this);
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
+    }
+
+    /**
+     * 在最右边添加一个按钮
+     *
+     * @param style {@link #STYLE_VOTE_BUTTON}、{@link #STYLE_VOTE_TEXT}或{@link #STYLE_LIKE}
+     * @return 按钮的位置，用于其他方法
+     */
+    public int addSlot(int style) {
+        Slot slot = new Slot(mSlots.size());
+        switch (style) {
+            case STYLE_VOTE_BUTTON:
+                FrodoVoteButton.applyStyle(getContext(), slot.mRenderer);
+                break;
+            case STYLE_VOTE_TEXT:
+                FrodoVoteTextView.applyStyle(getContext(), slot.mRenderer);
+                break;
+            case STYLE_LIKE:
+                FrodoLikeTextView.applyStyle(getContext(), slot.mRenderer);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown style " + style);
+        }
+        slot.mRenderer.setMetrics(mMetrics);
+        slot.mDescription = getResources().getString(style == STYLE_LIKE
+                ? R.string.reaction_like : R.string.reaction_vote);
+        mSlots.add(slot);
+        requestLayout();
+        mAccessibilityHelper.invalidateRoot();
+        return slot.mIndex;
+    }
+
+    /**
+     * 按钮内容四周的空白，比如{@link #STYLE_VOTE_BUTTON}的边框和图标之间
+     */
+    public void setSlotPadding(int slot, int left, int top, int right, int bottom) {
+        mSlots.get(slot).mRenderer.setPadding(left, top, right, bottom);
+        requestLayout();
+    }
+
+    /**
+     * 无障碍服务读出的按钮名称，后面会加上数字和是否选中。默认是“赞”或“喜欢”
+     */
+    public void setSlotContentDescription(int slot, CharSequence description) {
+        mSlots.get(slot).mDescription = description;
+        mAccessibilityHelper.invalidateVirtualView(slot);
+    }
+
+    /**
+     * 按钮之间的间距(px)
+     */
+    public void setSlotSpacing(int spacing) {
+        mSlotSpacing = spacing;
+        requestLayout();
+    }
+
+    public void setOnReactionListener(OnReactionListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 绑定数据，用于RecyclerView等复用的场景，不会触发OnReactionListener
+     *
+     * @param count   数字，已经包含了on
+     * @param on
+     * @param animate 状态有变化时是否播放动画
+     */
+    public void bindSlot(int slot, int count, boolean on, boolean animate) {
+        mSlots.get(slot).mRenderer.bindState(count, on, animate);
+        mAccessibilityHelper.invalidateVirtualView(slot);
+    }
+
+    public void setSlotCount(int slot, int count) {
+        mSlots.get(slot).mRenderer.setCount(count);
+        mAccessibilityHelper.invalidateVirtualView(slot);
+    }
+
+    public int getSlotCount(int slot) {
+        return mSlots.get(slot).mRenderer.getCount();
+    }
+
+    /**
+     * 动画中按动画结束后的状态算
+     */
+    public boolean isSlotOn(int slot) {
+        return mSlots.get(slot).mRenderer.isOn();
+    }
+
+    /**
+     * 是否可以点击切换
+     */
+    public void setSlotToggleable(int slot, boolean toggleable) {
+        mSlots.get(slot).mRenderer.setToggleable(toggleable);
+    }
+
+    /**
+     * 切换状态并播放动画，同点击
+     */
+    public void toggleSlot(int slot) {
+        mSlots.get(slot).mRenderer.toggle();
+    }
+
+    /**
+     * 取消投票，恢复之前的状态
+     */
+    public void cancelSlot(int slot) {
+        mSlots.get(slot).mRenderer.cancelAll();
+        mAccessibilityHelper.invalidateVirtualView(slot);
+    }
+
+    /**
+     * 被回收时调用，直接停止所有动画并停在最终状态，不回调
+     */
+    public void onRecycled() {
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            mSlots.get(i).mRenderer.onRecycled();
+        }
+    }
+
+    /**
+     * 开启性能统计，null为关闭，见{@link MagicMetrics}
+     *
+     * @param metrics 可以多个View共用
+     */
+    public void setMetrics(MagicMetrics metrics) {
+        mMetrics = metrics;
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            mSlots.get(i).mRenderer.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * (x, y)处的按钮，没有时返回-1
+     */
+    int findSlot(float x, float y) {
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            Slot slot = mSlots.get(i);
+            if (x >= slot.mLeft && x < slot.mLeft + slot.mRenderer.getWidth()
+                    && y >= slot.mTop && y < slot.mTop + slot.mRenderer.getHeight()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled()) {
+            return super.onTouchEvent(event);
+        }
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                mPressedSlot = findSlot(event.getX(), event.getY());
+                return mPressedSlot >= 0;
+            case MotionEvent.ACTION_UP:
+                int slot = mPressedSlot;
+                mPressedSlot = -1;
+                if (slot >= 0 && findSlot(event.getX(), event.getY()) == slot) {
+                    performClick();
+                    toggleSlot(slot);
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                mPressedSlot = -1;
+                return true;
+            default:
+                return mPressedSlot >= 0;
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            mSlots.get(i).mRenderer.onAttachedToWindow();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            mSlots.get(i).mRenderer.onDetachedFromWindow();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = mMetrics != null ? System.nanoTime() : 0;
+        int width = getPaddingLeft() + getPaddingRight();
+        int height = 0;
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            MagicVoteRenderer renderer = mSlots.get(i).mRenderer;
+            width += renderer.measureWidth();
+            if (i > 0) {
+                width += mSlotSpacing;
+            }
+            height = Math.max(height, renderer.measureHeight());
+        }
+        height += getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+        if (mMetrics != null) {
+            mMetrics.recordMeasure(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 按测量的宽度从左到右排列，高度都是View的内容高度
+     */
+    @Override
+    protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        int x = getPaddingLeft();
+        int height = bottom - top - getPaddingTop() - getPaddingBottom();
+        boolean moved = false;
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            Slot slot = mSlots.get(i);
+            MagicVoteRenderer renderer = slot.mRenderer;
+            int width = renderer.measureWidth();
+            moved |= slot.mLeft != x || slot.mTop != getPaddingTop()
+                    || renderer.getWidth() != width || renderer.getHeight() != height;
+            slot.mLeft = x;
+            slot.mTop = getPaddingTop();
+            renderer.setSize(width, height);
+            x += width + mSlotSpacing;
+        }
+        // View的大小不变时不会自动重绘
+        if (moved) {
+            invalidate();
+            mAccessibilityHelper.invalidateRoot();
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        for (int i = 0, size = mSlots.size(); i < size; i++) {
+            Slot slot = mSlots.get(i);
+            MagicVoteRenderer renderer = slot.mRenderer;
+            // 只有部分按钮在动画时，其他按钮不在重绘区域内
+            if (canvas.quickReject(slot.mLeft, slot.mTop, slot.mLeft + renderer.getWidth(),
+                    slot.mTop + renderer.getHeight(), Canvas.EdgeType.AA)) {
+                continue;
+            }
+            canvas.translate(slot.mLeft, slot.mTop);
+            renderer.draw(canvas);
+            canvas.translate(-slot.mLeft, -slot.mTop);
+        }
+    }
+
+    /**
+     * 一个按钮，重绘区域转换成View的坐标
+     */
+    private class Slot implements MagicVoteRenderer.Callback {
+
+        final int mIndex;
+        final MagicVoteRenderer mRenderer;
+        int mLeft;
+        int mTop;
+        CharSequence mDescription;
+
+        Slot(int index) {
+            mIndex = index;
+            mRenderer = new MagicVoteRenderer(getResources(), this);
+        }
+
+        @Override
+        public void invalidateRenderer(Rect dirty) {
+            if (dirty == null) {
+                mDirty.set(0, 0, mRenderer.getWidth(), mRenderer.getHeight());
+            } else {
+                mDirty.set(dirty);
+            }
+            mDirty.offset(mLeft, mTop);
+            invalidate(mDirty);
+        }
+
+        @Override
+        public void requestRendererLayout() {
+            requestLayout();
+        }
+
+        @Override
+        public void onRendererToggle(boolean on) {
+            mAccessibilityHelper.invalidateVirtualView(mIndex);
+            if (mListener != null) {
+                mListener.onReaction(ReactionBarView.this, mIndex, on);
+            }
+        }
+    }
+
+    /**
+     * 每个按钮一个虚拟节点，id就是按钮的位置
+     */
+    private class SlotAccessibilityHelper extends ExploreByTouchHelper {
+
+        private final Rect mBounds = new Rect();
+
+        SlotAccessibilityHelper(View host) {
+            super(host);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int slot = findSlot(x, y);
+            return slot >= 0 ? slot : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            for (int i = 0, size = mSlots.size(); i < size; i++) {
+                virtualViewIds.add(i);
+            }
+        }
+
+        @Override
+        protected void onPopulateEventForVirtualView(int virtualViewId, AccessibilityEvent event) {
+            event.setContentDescription(describe(mSlots.get(virtualViewId)));
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+            Slot slot = mSlots.get(virtualViewId);
+            MagicVoteRenderer renderer = slot.mRenderer;
+            mBounds.set(slot.mLeft, slot.mTop, slot.mLeft + renderer.getWidth(),
+                    slot.mTop + renderer.getHeight());
+            // 还没有layout时bounds不能为空
+            if (mBounds.isEmpty()) {
+                mBounds.set(0, 0, 1, 1);
+            }
+            node.setBoundsInParent(mBounds);
+            node.setContentDescription(describe(slot));
+            node.setClassName(Button.class.getName());
+            node.setCheckable(true);
+            node.setChecked(renderer.isOn());
+            node.setEnabled(isEnabled() && renderer.isToggleable());
+            node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+            if (action != AccessibilityNodeInfoCompat.ACTION_CLICK) {
+                return false;
+            }
+            toggleSlot(virtualViewId);
+            sendEventForVirtualView(virtualViewId, AccessibilityEvent.TYPE_VIEW_CLICKED);
+            return true;
+        }
+
+        private CharSequence describe(Slot slot) {
+            return getResources().getString(R.string.reaction_description, slot.mDescription,
+                    slot.mRenderer.getCount());
+        }
+    }
+}
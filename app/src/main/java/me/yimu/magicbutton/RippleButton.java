@@ -1,19 +1,15 @@
 package me.yimu.magicbutton;
 
-import android.animation.Animator;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.PointF;
 import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
-import android.view.animation.DecelerateInterpolator;
 import android.widget.TextView;
 
 /**
@@ -25,7 +21,7 @@ public class RippleButton extends TextView implements View.OnClickListener {
     // Default Value
     public final int DEFAULT_COLOR = Color.parseColor("#cccccc");
     public final int DEFAULT_BORDER_WIDTH = 1;
-    public final int DEFAULT_BORDER_RADIUS = UIUtils.dip2px(getContext(), 3);
+    public final int DEFAULT_BORDER_RADIUS = UIUtils.getDimens(getContext()).rippleBorderRadius;
     public final int DEFAULT_DURATION = 600;
     public final int DEFAULT_BG_COLOR = Color.WHITE;
 
@@ -38,12 +34,18 @@ public class RippleButton extends TextView implements View.OnClickListener {
 
     private PointF mStartPoint;
     private float mRippleRadius;
-    private ValueAnimator mRippleAnimator;
-    private Path mBorderPath;
+    private float mRippleStartRadius;
+    private float mRippleMaxRadius;
+    private final FrameInvalidator mFrameInvalidator = new FrameInvalidator(this);
+    private MagicAnimation mRippleAnimator;
+    private final DirtyBounds mRippleDirty = new DirtyBounds();
+    private final RectF mBorderRect = new RectF();
     private Paint mPaint;
+    private RippleShader mRippleShader;
 
     private boolean isRippling = false;
     private OnRippleListener mOnRippleListener = null;
+    private MagicMetrics mMetrics;
 
     public interface OnRippleListener {
         void onRippleStart();
@@ -86,22 +88,27 @@ public class RippleButton extends TextView implements View.OnClickListener {
     }
 
     private void init() {
-        setLayerType(LAYER_TYPE_SOFTWARE, null);
         mPaint = new Paint();
         mPaint.setAntiAlias(true);
+        mRippleShader = new RippleShader(mRippleColor);
         mStartPoint = new PointF(0, 0);
-        mBorderPath = new Path();
 
         this.setOnClickListener(this);
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        long start = mMetrics != null ? System.nanoTime() : 0;
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (mMetrics != null) {
+            mMetrics.recordMeasure(System.nanoTime() - start);
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
+        long start = mMetrics != null ? System.nanoTime() : 0;
+
         // 绘制边框背景
         drawRoundBorder(canvas, mBorderWidth, mBorderRadius, mBorderColor);
 
@@ -110,92 +117,110 @@ public class RippleButton extends TextView implements View.OnClickListener {
             drawRipple(canvas);
         }
         super.onDraw(canvas);
+        if (mMetrics != null) {
+            mMetrics.recordDraw(System.nanoTime() - start);
+        }
     }
 
     protected void drawRoundBorder(Canvas canvas, float width, float radius, int color) {
+        updateBorderRect(width);
+        mPaint.setStyle(Paint.Style.FILL);
+        mPaint.setColor(isActivated() ? mRippleColor : mBgColor);
+        canvas.drawRoundRect(mBorderRect, radius, radius, mPaint);
+
         mPaint.setColor(color);
         mPaint.setStyle(Paint.Style.STROKE);
         mPaint.setStrokeWidth(width);
+        canvas.drawRoundRect(mBorderRect, radius, radius, mPaint);
+    }
+
+    private void updateBorderRect(float width) {
         float padding = width / 2;
-        RectF rectF = new RectF(padding, padding, (float) getMeasuredWidth() - padding,
+        mBorderRect.set(padding, padding, (float) getMeasuredWidth() - padding,
                 (float) getMeasuredHeight() - padding);
-        mBorderPath.reset();
-        mBorderPath.addRoundRect(rectF, radius, radius, Path.Direction.CCW);
-        canvas.save();
-        canvas.clipPath(mBorderPath);
-        if (isActivated()) {
-            canvas.drawColor(mRippleColor);
-        } else {
-            canvas.drawColor(mBgColor);
-        }
-        canvas.restore();
-        canvas.drawRoundRect(rectF, radius, radius, mPaint);
     }
 
     protected void drawRipple(Canvas canvas) {
-        mPaint.setStyle(Paint.Style.FILL);
-        mPaint.setColor(mRippleColor);
-        canvas.save();
-        canvas.clipPath(mBorderPath);
-        canvas.drawCircle(mStartPoint.x, mStartPoint.y, mRippleRadius, mPaint);
-        canvas.restore();
+        mRippleShader.draw(canvas, mBorderRect, mBorderRadius, mStartPoint.x, mStartPoint.y,
+                mRippleRadius);
     }
 
     protected void initRippleAnimator() {
-        // 最大半径为水波纹中心到按钮最边角的距离，由勾股定理算出
-        float w = Math.max(mStartPoint.x, getMeasuredWidth() - mStartPoint.x);
-        float h = Math.max(mStartPoint.y, getMeasuredHeight() - mStartPoint.y);
-        float maxRadius = (float) Math.sqrt(Math.pow(w, 2) + Math.pow(h, 2));
-
-        mRippleAnimator = ValueAnimator.ofFloat(UIUtils.dip2px(getContext(), 5), maxRadius);
-        mRippleAnimator.setDuration(mRippleDuration);
-        mRippleAnimator.setInterpolator(new DecelerateInterpolator());
-        mRippleAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                mRippleRadius = (float) animation.getAnimatedValue();
-                postInvalidate();
-            }
-        });
-        mRippleAnimator.addListener(new Animator.AnimatorListener() {
-
-            boolean isCanceled;
-
-            @Override
-            public void onAnimationStart(Animator animation) {
-                isCanceled = false;
-                isRippling = true;
-                if (mOnRippleListener != null) {
-                    mOnRippleListener.onRippleStart();
-                }
-            }
+        mRippleStartRadius = UIUtils.getDimens(getContext()).rippleStartRadius;
+        mRippleAnimator = new MagicAnimation(mRippleDuration, KeyframeTimeline.EASE_DECELERATE,
+                mFrameInvalidator, new MagicAnimation.Listener() {
+                    @Override
+                    public void onAnimationUpdate(MagicAnimation animation) {
+                        mRippleRadius = RippleGeometry.radiusAt(mRippleStartRadius, mRippleMaxRadius,
+                                animation.getAnimatedFraction());
+                        mRippleDirty.invalidate(mFrameInvalidator, mStartPoint.x, mStartPoint.y,
+                                mRippleRadius);
+                    }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                if (!isCanceled) {
-                    setActivated(true);
-                    if (mOnRippleListener != null) {
-                        mOnRippleListener.onRippleEnd();
+                    @Override
+                    public void onAnimationEnd(MagicAnimation animation) {
+                        isRippling = false;
+                        setActivated(true);
+                        if (mOnRippleListener != null) {
+                            mOnRippleListener.onRippleEnd();
+                        }
                     }
-                }
-                isRippling = false;
 
-            }
+                    @Override
+                    public void onAnimationCancel(MagicAnimation animation) {
+                        isRippling = false;
+                        invalidate();
+                        if (mOnRippleListener != null) {
+                            mOnRippleListener.onRippleCancel();
+                        }
+                    }
+                });
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
-                isCanceled = true;
-                isRippling = false;
-                if (mOnRippleListener != null) {
-                    mOnRippleListener.onRippleCancel();
-                }
-            }
+    /**
+     * 最大半径为水波纹中心到按钮最边角的距离
+     */
+    private void updateRippleMaxRadius() {
+        mRippleMaxRadius = RippleGeometry.farthestCornerDistance(mStartPoint.x, mStartPoint.y,
+                getMeasuredWidth(), getMeasuredHeight());
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
+    /**
+     * 开启性能统计，null为关闭，见{@link MagicMetrics}
+     *
+     * @param metrics 可以多个按钮共用
+     */
+    public void setMetrics(MagicMetrics metrics) {
+        mMetrics = metrics;
+        applyAnimatorMetrics();
+    }
 
-            }
-        });
+    private void applyAnimatorMetrics() {
+        if (mRippleAnimator == null) {
+            return;
+        }
+        mRippleAnimator.setMetrics(mMetrics);
+    }
+
+    public long getRippleDuration() {
+        return mRippleDuration;
+    }
+
+    // 以下给重写drawRoundBorder、drawRipple的子类用
+    float getRippleRadius() {
+        return mRippleRadius;
+    }
+
+    PointF getRippleStartPos() {
+        return mStartPoint;
+    }
+
+    int getRippleColor() {
+        return mRippleColor;
+    }
+
+    int getBgColor() {
+        return mBgColor;
     }
 
     public void setOnRippleListener(OnRippleListener listener) {
@@ -208,8 +233,17 @@ public class RippleButton extends TextView implements View.OnClickListener {
 
     public void startRipple() {
         cancelRipple();
-        initRippleAnimator();
+        if (mRippleAnimator == null) {
+            initRippleAnimator();
+            applyAnimatorMetrics();
+        }
+        updateRippleMaxRadius();
+        mRippleDirty.reset();
         mRippleAnimator.start();
+        isRippling = true;
+        if (mOnRippleListener != null) {
+            mOnRippleListener.onRippleStart();
+        }
     }
 
     public void cancelRipple() {
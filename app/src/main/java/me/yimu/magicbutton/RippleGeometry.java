@@ -0,0 +1,26 @@
+package me.yimu.magicbutton;
+
+/**
+ * 水波纹半径的计算，不依赖android，可以直接在JVM上测试
+ */
+final class RippleGeometry {
+
+    private RippleGeometry() {
+    }
+
+    /**
+     * 水波纹中心(cx, cy)到按钮最远的角的距离，由勾股定理算出
+     */
+    static float farthestCornerDistance(float cx, float cy, float width, float height) {
+        float dx = Math.max(cx, width - cx);
+        float dy = Math.max(cy, height - cy);
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * @param fraction 经过easing之后的进度 0~1
+     */
+    static float radiusAt(float startRadius, float maxRadius, float fraction) {
+        return startRadius + (maxRadius - startRadius) * fraction;
+    }
+}
@@ -0,0 +1,58 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+/**
+ * 用shader把水波纹圆形限制在圆角矩形内
+ * <p>
+ * 效果等同于 clipPath(圆角矩形) + drawCircle，但不需要clipPath，
+ * 不用为了clipPath开启软件layer，可以走硬件加速。
+ * 圆形由一个固定半径的RadialGradient通过localMatrix缩放平移得到，每帧不创建新对象。
+ */
+final class RippleShader {
+
+    private static final float BASE_RADIUS = 100f;
+    // 边缘留一点渐变做抗锯齿
+    private static final float[] STOPS = new float[]{0, 0.99f, 1f};
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Matrix mMatrix = new Matrix();
+    private Shader mShader;
+    private int mColor;
+
+    RippleShader(int color) {
+        setColor(color);
+    }
+
+    void setColor(int color) {
+        if (mShader != null && mColor == color) {
+            return;
+        }
+        mColor = color;
+        // 边缘透明色保持rgb不变，避免过渡处发黑
+        int edge = Color.argb(0, Color.red(color), Color.green(color), Color.blue(color));
+        mShader = new RadialGradient(0, 0, BASE_RADIUS, new int[]{color, color, edge}, STOPS,
+                Shader.TileMode.CLAMP);
+        mPaint.setShader(mShader);
+    }
+
+    /**
+     * 在bounds圆角矩形内绘制以(cx, cy)为中心、radius为半径的圆
+     */
+    void draw(Canvas canvas, RectF bounds, float cornerRadius, float cx, float cy, float radius) {
+        if (radius <= 0) {
+            return;
+        }
+        float scale = radius / BASE_RADIUS;
+        mMatrix.setScale(scale, scale);
+        mMatrix.postTranslate(cx, cy);
+        mShader.setLocalMatrix(mMatrix);
+        canvas.drawRoundRect(bounds, cornerRadius, cornerRadius, mPaint);
+    }
+}
@@ -0,0 +1,79 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * {@link UIUtils#getSharedRoundedCornerBitmap(Bitmap, int, int, int, android.content.Context)}的结果缓存
+ * <p>
+ * 以 原图 + 圆角 + 边框 + 颜色 作为key，按生成的Bitmap的字节数限制总大小，超出时移除最久没有用到的。
+ * 原图按引用比较并且只弱引用，不会因为缓存而不能回收；原图的内容被修改后generationId变化，不会命中旧的结果。
+ * LruCache自己加锁，任何线程都可以调用。
+ */
+final class RoundedCornerCache {
+
+    private static final LruCache<Key, Bitmap> sCache =
+            new LruCache<Key, Bitmap>((int) Math.min(Runtime.getRuntime().maxMemory() / 32, Integer.MAX_VALUE)) {
+                @Override
+                protected int sizeOf(Key key, Bitmap value) {
+                    return value.getRowBytes() * value.getHeight();
+                }
+            };
+
+    private static final class Key {
+        final WeakReference<Bitmap> source;
+        final int sourceHash;
+        final int generationId;
+        final int cornerPx;
+        final int borderPx;
+        final int color;
+
+        Key(Bitmap source, int cornerPx, int borderPx, int color) {
+            this.source = new WeakReference<>(source);
+            this.sourceHash = System.identityHashCode(source);
+            this.generationId = source.getGenerationId();
+            this.cornerPx = cornerPx;
+            this.borderPx = borderPx;
+            this.color = color;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            Bitmap bitmap = source.get();
+            // 原图已经被回收的key不会再等于任何key，等着被LRU移除
+            return bitmap != null && bitmap == other.source.get() && generationId == other.generationId
+                    && cornerPx == other.cornerPx && borderPx == other.borderPx && color == other.color;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = sourceHash;
+            result = 31 * result + generationId;
+            result = 31 * result + cornerPx;
+            result = 31 * result + borderPx;
+            result = 31 * result + color;
+            return result;
+        }
+    }
+
+    private RoundedCornerCache() {
+    }
+
+    static Bitmap get(Bitmap source, int cornerPx, int borderPx, int color) {
+        return sCache.get(new Key(source, cornerPx, borderPx, color));
+    }
+
+    static void put(Bitmap source, int cornerPx, int borderPx, int color, Bitmap output) {
+        sCache.put(new Key(source, cornerPx, borderPx, color), output);
+    }
+
+    static void clear() {
+        sCache.evictAll();
+    }
+}
@@ -0,0 +1,115 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
+
+/**
+ * 圆角加边框的图片，效果和{@link UIUtils#getRoundedCornerBitmap(Bitmap, int, int, int, android.content.Context)}相同
+ * <p>
+ * 用BitmapShader直接画原图，不复制一份ARGB_8888的Bitmap，头像多的列表用这个代替getRoundedCornerBitmap。
+ * 原图拉伸到bounds，intrinsic尺寸为原图的尺寸。
+ */
+public class RoundedCornerDrawable extends Drawable {
+
+    private final Bitmap mBitmap;
+    private final Paint mBitmapPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBorderPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Matrix mShaderMatrix = new Matrix();
+    private final RectF mRect = new RectF();
+    private final RectF mBorderRect = new RectF();
+    private final int mBorderColor;
+    private final float mCornerRadius;
+    private final float mBorderWidth;
+
+    /**
+     * @param bitmap       原图，不会被修改
+     * @param borderColor  边框颜色
+     * @param cornerRadius 圆角半径(px)
+     * @param borderWidth  边框宽度(px)，0为没有边框
+     */
+    public RoundedCornerDrawable(Bitmap bitmap, int borderColor, float cornerRadius, float borderWidth) {
+        mBitmap = bitmap;
+        mCornerRadius = cornerRadius;
+        mBorderWidth = borderWidth;
+        mBorderColor = borderColor;
+        mBitmapPaint.setShader(new BitmapShader(bitmap, Shader.TileMode.CLAMP, Shader.TileMode.CLAMP));
+        mBorderPaint.setStyle(Paint.Style.STROKE);
+        mBorderPaint.setColor(borderColor);
+        // getRoundedCornerBitmap的边框压在图片边缘上，只有里面一半画在图片内，这里只画这一半
+        mBorderPaint.setStrokeWidth(borderWidth / 2);
+    }
+
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        mRect.set(bounds);
+        mBorderRect.set(mRect);
+        mBorderRect.inset(mBorderWidth / 4, mBorderWidth / 4);
+        mShaderMatrix.setScale(bounds.width() / (float) mBitmap.getWidth(),
+                bounds.height() / (float) mBitmap.getHeight());
+        mShaderMatrix.postTranslate(bounds.left, bounds.top);
+        mBitmapPaint.getShader().setLocalMatrix(mShaderMatrix);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mBitmap.getWidth();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mBitmap.getHeight();
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mRect.isEmpty()) {
+            return;
+        }
+        canvas.drawRoundRect(mRect, mCornerRadius, mCornerRadius, mBitmapPaint);
+        if (mBorderWidth > 0) {
+            float radius = Math.max(mCornerRadius - mBorderWidth / 4, 0);
+            canvas.drawRoundRect(mBorderRect, radius, radius, mBorderPaint);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (alpha != mBitmapPaint.getAlpha()) {
+            mBitmapPaint.setAlpha(alpha);
+            mBorderPaint.setAlpha(Color.alpha(mBorderColor) * alpha / 255);
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return mBitmapPaint.getAlpha();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mBitmapPaint.setColorFilter(colorFilter);
+        mBorderPaint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -0,0 +1,73 @@
+package me.yimu.magicbutton;
+
+import java.util.ArrayList;
+
+/**
+ * {@link UIUtils}中文字计数相关的逻辑，不依赖android，可以直接在JVM上测试
+ */
+final class TextCounts {
+
+    // 每行字数的缓存，字体配置和宽度都很少，直接线性查找，查找时不需要创建key
+    private static final int LINE_COUNT_CACHE_SIZE = 16;
+    private static final ArrayList<LineCount> sLineCounts = new ArrayList<>();
+
+    private static class LineCount {
+        final float textSize;
+        final float textScaleX;
+        final Object typeface;
+        final int maxWidth;
+        final int count;
+
+        LineCount(float textSize, float textScaleX, Object typeface, int maxWidth, int count) {
+            this.textSize = textSize;
+            this.textScaleX = textScaleX;
+            this.typeface = typeface;
+            this.maxWidth = maxWidth;
+            this.count = count;
+        }
+    }
+
+    private TextCounts() {
+    }
+
+    /**
+     * 字数，0-255的字符算1个，其他字符算2个
+     * <p>
+     * 代理对的两个char都大于255，和按codePoint计算的结果一样，不需要codePointAt
+     */
+    static int getWordCount(CharSequence s) {
+        int length = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            length += s.charAt(i) <= 255 ? 1 : 2;
+        }
+        return length;
+    }
+
+    /**
+     * 取缓存的每行字数
+     *
+     * @return 没有缓存时返回-1
+     */
+    static int getLineCount(float textSize, float textScaleX, Object typeface, int maxWidth) {
+        synchronized (sLineCounts) {
+            for (int i = 0, size = sLineCounts.size(); i < size; i++) {
+                LineCount entry = sLineCounts.get(i);
+                if (entry.maxWidth == maxWidth && entry.textSize == textSize
+                        && entry.textScaleX == textScaleX && entry.typeface == typeface) {
+                    return entry.count;
+                }
+            }
+        }
+        return -1;
+    }
+
+    static void putLineCount(float textSize, float textScaleX, Object typeface, int maxWidth,
+                             int count) {
+        synchronized (sLineCounts) {
+            if (sLineCounts.size() >= LINE_COUNT_CACHE_SIZE) {
+                sLineCounts.remove(0);
+            }
+            sLineCounts.add(new LineCount(textSize, textScaleX, typeface, maxWidth, count));
+        }
+    }
+}
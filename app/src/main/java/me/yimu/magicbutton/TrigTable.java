@@ -0,0 +1,32 @@
+package me.yimu.magicbutton;
+
+/**
+ * sin/cos查表，一圈分为{@link #SIZE}份，避免每帧用double计算三角函数
+ */
+final class TrigTable {
+
+    static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+
+    private static final float[] SIN = new float[SIZE];
+
+    static {
+        for (int i = 0; i < SIZE; i++) {
+            SIN[i] = (float) Math.sin(i * 2 * Math.PI / SIZE);
+        }
+    }
+
+    private TrigTable() {
+    }
+
+    /**
+     * @param index 角度，一圈为SIZE，超出范围的按一圈取余
+     */
+    static float sin(int index) {
+        return SIN[index & MASK];
+    }
+
+    static float cos(int index) {
+        return SIN[(index + SIZE / 4) & MASK];
+    }
+}
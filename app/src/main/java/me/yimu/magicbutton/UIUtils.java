@@ -6,17 +6,12 @@ import android.content.res.ColorStateList;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
-import android.graphics.Rect;
-import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.support.v4.graphics.drawable.DrawableCompat;
 import android.text.Layout;
 import android.text.TextPaint;
 import android.util.DisplayMetrics;
 import android.util.TypedValue;
-import android.view.WindowManager;
 import android.widget.RatingBar;
 import android.widget.TextView;
 
@@ -30,35 +25,35 @@ public class UIUtils {
     public UIUtils() {
     }
 
+    /**
+     * 屏幕尺寸和状态栏高度都有缓存，配置变化时自动刷新，见{@link DisplayMetricsCache}
+     */
     public static int getDisplayWidth(Context context) {
         if(null == context) {
             return 0;
         } else {
-            WindowManager wm = (WindowManager)context.getSystemService("window");
-            DisplayMetrics metrics = new DisplayMetrics();
-            wm.getDefaultDisplay().getMetrics(metrics);
-            return metrics.widthPixels;
+            return DisplayMetricsCache.get(context).widthPixels;
         }
     }
 
     public static int getDisplayHeight(Context context) {
-        WindowManager wm = (WindowManager)context.getSystemService("window");
-        DisplayMetrics metrics = new DisplayMetrics();
-        wm.getDefaultDisplay().getMetrics(metrics);
-        return metrics.heightPixels;
+        return DisplayMetricsCache.get(context).heightPixels;
     }
 
     public static float getDisplayDensity(Context context) {
-        WindowManager wm = (WindowManager)context.getSystemService("window");
-        DisplayMetrics metrics = new DisplayMetrics();
-        wm.getDefaultDisplay().getMetrics(metrics);
-        return metrics.density;
+        return DisplayMetricsCache.get(context).density;
     }
 
     public static final int getStatusBarHeight(Activity activity) {
-        Rect frame = new Rect();
-        activity.getWindow().getDecorView().getWindowVisibleDisplayFrame(frame);
-        return frame.top;
+        return DisplayMetricsCache.getStatusBarHeight(activity);
+    }
+
+    /**
+     * 丢弃屏幕尺寸和状态栏高度的缓存，配置变化和Activity的窗口attach时会自动调用。
+     * Display的尺寸变了但没有配置变化，或者切换全屏之后DecorView尺寸没变时手动调用
+     */
+    public static void refreshDisplayMetrics() {
+        DisplayMetricsCache.invalidate();
     }
 
     public static int px2dip(Context context, float pxValue) {
@@ -81,8 +76,24 @@ public class UIUtils {
         return (int)(pxValue * m + 0.5F);
     }
 
+    /**
+     * 按钮用到的尺寸，同一个density和fontScale下共用，见{@link MagicDimens}
+     */
+    static MagicDimens getDimens(Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        return MagicDimens.of(metrics.density, metrics.scaledDensity);
+    }
+
     public static final int textCountPerLine(Paint paint, int maxWidth) {
-        return paint.breakText("朋友已走刚升职的你举杯到凌晨还未够用尽心机拉我手缠在我颈背后说你男友有事忙是借口说到终于饮醉酒情侣会走刚失恋的你哭干眼泪前来自首,寂寞因此牵我手.除下了他手信后,何以你今天竟想找寻伴侣", 0, "朋友已走刚升职的你举杯到凌晨还未够用尽心机拉我手缠在我颈背后说你男友有事忙是借口说到终于饮醉酒情侣会走刚失恋的你哭干眼泪前来自首,寂寞因此牵我手.除下了他手信后,何以你今天竟想找寻伴侣".length(), true, (float)maxWidth, (float[])null);
+        // 同样的字体和宽度结果不变，缓存起来避免每次breakText整段文字
+        int count = TextCounts.getLineCount(paint.getTextSize(), paint.getTextScaleX(),
+                paint.getTypeface(), maxWidth);
+        if (count < 0) {
+            count = paint.breakText(TEST_TEXT, 0, TEST_TEXT.length(), true, (float) maxWidth, null);
+            TextCounts.putLineCount(paint.getTextSize(), paint.getTextScaleX(),
+                    paint.getTypeface(), maxWidth, count);
+        }
+        return count;
     }
 
     public static final int textCountPerLine(TextView textView, int maxWidth) {
@@ -110,42 +121,65 @@ public class UIUtils {
     }
 
     public static int getWordCount(String s) {
-        int length = 0;
-
-        for(int i = 0; i < s.length(); ++i) {
-            int ascii = Character.codePointAt(s, i);
-            if(ascii >= 0 && ascii <= 255) {
-                ++length;
-            } else {
-                length += 2;
-            }
-        }
-
-        return length;
+        return TextCounts.getWordCount(s);
     }
 
+    /**
+     * 圆角加边框的图片，每次返回新的Bitmap
+     * <p>
+     * 只是用来显示时用{@link #getRoundedCornerDrawable(Bitmap, int, int, int, Context)}，不需要复制原图；
+     * 同样的图片要多次使用时用{@link #getSharedRoundedCornerBitmap(Bitmap, int, int, int, Context)}。
+     */
     public static Bitmap getRoundedCornerBitmap(Bitmap bitmap, int color, int cornerDips, int borderDips, Context context) {
-        Bitmap output = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
-        Canvas canvas = new Canvas(output);
         int borderSizePx = (int) TypedValue.applyDimension(1, (float)borderDips, context.getResources().getDisplayMetrics());
         int cornerSizePx = (int)TypedValue.applyDimension(1, (float)cornerDips, context.getResources().getDisplayMetrics());
-        Paint paint = new Paint();
-        Rect rect = new Rect(0, 0, bitmap.getWidth(), bitmap.getHeight());
-        RectF rectF = new RectF(rect);
-        paint.setAntiAlias(true);
-        paint.setColor(-1);
-        paint.setStyle(Paint.Style.FILL);
-        canvas.drawARGB(0, 0, 0, 0);
-        canvas.drawRoundRect(rectF, (float)cornerSizePx, (float)cornerSizePx, paint);
-        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_IN));
-        canvas.drawBitmap(bitmap, rect, rect, paint);
-        paint.setColor(color);
-        paint.setStyle(Paint.Style.STROKE);
-        paint.setStrokeWidth((float)borderSizePx);
-        canvas.drawRoundRect(rectF, (float)cornerSizePx, (float)cornerSizePx, paint);
+        return createRoundedCornerBitmap(bitmap, color, cornerSizePx, borderSizePx);
+    }
+
+    /**
+     * 和{@link #getRoundedCornerBitmap(Bitmap, int, int, int, Context)}效果相同，
+     * 结果按 原图 + 圆角 + 边框 + 颜色 缓存，见{@link RoundedCornerCache}
+     * <p>
+     * 返回的Bitmap是不可变的，并且和其他调用方共用，不能recycle。
+     */
+    public static Bitmap getSharedRoundedCornerBitmap(Bitmap bitmap, int color, int cornerDips, int borderDips, Context context) {
+        int borderSizePx = (int) TypedValue.applyDimension(1, (float)borderDips, context.getResources().getDisplayMetrics());
+        int cornerSizePx = (int)TypedValue.applyDimension(1, (float)cornerDips, context.getResources().getDisplayMetrics());
+        Bitmap output = RoundedCornerCache.get(bitmap, cornerSizePx, borderSizePx, color);
+        if (output == null) {
+            Bitmap mutable = createRoundedCornerBitmap(bitmap, color, cornerSizePx, borderSizePx);
+            // 共用的结果不能被画上别的内容，copy(config, false)得到不可变的Bitmap
+            output = mutable.copy(Bitmap.Config.ARGB_8888, false);
+            mutable.recycle();
+            RoundedCornerCache.put(bitmap, cornerSizePx, borderSizePx, color, output);
+        }
+        return output;
+    }
+
+    private static Bitmap createRoundedCornerBitmap(Bitmap bitmap, int color, int cornerSizePx, int borderSizePx) {
+        Bitmap output = Bitmap.createBitmap(bitmap.getWidth(), bitmap.getHeight(), Bitmap.Config.ARGB_8888);
+        RoundedCornerDrawable drawable = new RoundedCornerDrawable(bitmap, color, cornerSizePx, borderSizePx);
+        drawable.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
+        drawable.draw(new Canvas(output));
         return output;
     }
 
+    /**
+     * 和{@link #getRoundedCornerBitmap(Bitmap, int, int, int, Context)}效果相同，直接画原图，不复制
+     */
+    public static RoundedCornerDrawable getRoundedCornerDrawable(Bitmap bitmap, int color, int cornerDips, int borderDips, Context context) {
+        int borderSizePx = (int) TypedValue.applyDimension(1, (float)borderDips, context.getResources().getDisplayMetrics());
+        int cornerSizePx = (int)TypedValue.applyDimension(1, (float)cornerDips, context.getResources().getDisplayMetrics());
+        return new RoundedCornerDrawable(bitmap, color, cornerSizePx, borderSizePx);
+    }
+
+    /**
+     * 清空getSharedRoundedCornerBitmap的缓存，比如在onTrimMemory中调用
+     */
+    public static void clearRoundedCornerCache() {
+        RoundedCornerCache.clear();
+    }
+
     public static void setRatingBar(RatingBar ratingBar, int max, int average) {
         ratingBar.setNumStars(5);
         ratingBar.setIsIndicator(true);
@@ -0,0 +1,241 @@
+package me.yimu.magicbutton;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 合并点赞/取消赞请求
+ * <p>
+ * 第一次toggle之后开始一个窗口，窗口内同一个item的多次toggle只保留最终状态，
+ * 点赞后又取消赞（回到窗口开始前的状态）的item不会提交。窗口结束时所有item的净变化
+ * 合并成一次{@link Backend#commit(List)}，在executor上执行。
+ * 各个窗口的commit按顺序串行执行，前一次返回之后才开始下一次，executor是线程池时同一个item的请求也不会乱序。
+ * commit抛出异常或者executor拒绝执行时回调{@link OnCommitFailedListener}，没有设置时输出到日志；
+ * 被拒绝的窗口保留，下一次flush时按顺序重新提交。
+ * 不依赖android，可以直接在JVM上测试；和按钮的连接见{@link VoteDispatchers}。
+ */
+public class VoteDispatcher {
+
+    public static final long DEFAULT_WINDOW = 1000;
+
+    /**
+     * 实际的网络请求，在executor上调用
+     */
+    public interface Backend {
+        void commit(List<Change> changes);
+    }
+
+    /**
+     * 提交失败，在失败的线程上回调
+     */
+    public interface OnCommitFailedListener {
+        /**
+         * @param changes 失败的窗口
+         * @param error   commit抛出的异常，或者executor拒绝执行时的{@link RejectedExecutionException}
+         */
+        void onCommitFailed(List<Change> changes, Throwable error);
+    }
+
+    /**
+     * 一个item在窗口内的净变化
+     */
+    public static final class Change {
+        public final String itemId;
+        public final boolean voted;
+
+        Change(String itemId, boolean voted) {
+            this.itemId = itemId;
+            this.voted = voted;
+        }
+
+        @Override
+        public String toString() {
+            return itemId + (voted ? " voted" : " unvoted");
+        }
+    }
+
+    private static class Pending {
+        // 窗口开始前的状态
+        final boolean initial;
+        boolean current;
+
+        Pending(boolean initial) {
+            this.initial = initial;
+        }
+    }
+
+    private static final ScheduledExecutorService sTimer = new ScheduledThreadPoolExecutor(1,
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "VoteDispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private static final Logger LOGGER = Logger.getLogger(VoteDispatcher.class.getName());
+
+    private final Backend mBackend;
+    private final Executor mExecutor;
+    private final long mWindow;
+
+    // 按第一次toggle的顺序提交
+    private final Map<String, Pending> mPending = new LinkedHashMap<>();
+    private boolean mFlushScheduled;
+
+    // 等待提交的窗口，同一时间只有一个在executor上执行
+    private final ArrayDeque<List<Change>> mBatches = new ArrayDeque<>();
+    private boolean mCommitting;
+    private volatile OnCommitFailedListener mOnCommitFailedListener;
+
+    private final Runnable mFlushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private final Runnable mCommitRunnable = new Runnable() {
+        @Override
+        public void run() {
+            List<Change> changes;
+            synchronized (mBatches) {
+                changes = mBatches.poll();
+            }
+            try {
+                mBackend.commit(changes);
+            } catch (RuntimeException e) {
+                // 这个窗口的变化已经丢失，至少要留下记录
+                reportFailure(changes, e);
+            } finally {
+                scheduleNextCommit();
+            }
+        }
+    };
+
+    /**
+     * @param backend
+     * @param executor 执行{@link Backend#commit(List)}的线程池，可以是多线程的
+     * @param window   合并窗口(ms)，0表示只在调用{@link #flush()}时提交
+     */
+    public VoteDispatcher(Backend backend, Executor executor, long window) {
+        mBackend = backend;
+        mExecutor = executor;
+        mWindow = window;
+    }
+
+    public void setOnCommitFailedListener(OnCommitFailedListener listener) {
+        mOnCommitFailedListener = listener;
+    }
+
+    /**
+     * 点击后调用，voted为点击之后的状态
+     */
+    public void toggle(String itemId, boolean voted) {
+        synchronized (mPending) {
+            Pending pending = mPending.get(itemId);
+            if (pending == null) {
+                pending = new Pending(!voted);
+                mPending.put(itemId, pending);
+            }
+            pending.current = voted;
+            if (!mFlushScheduled && mWindow > 0) {
+                mFlushScheduled = true;
+                sTimer.schedule(mFlushRunnable, mWindow, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 立即提交当前窗口内的净变化，例如在页面onPause时调用
+     */
+    public void flush() {
+        final List<Change> changes;
+        synchronized (mPending) {
+            mFlushScheduled = false;
+            if (mPending.isEmpty()) {
+                return;
+            }
+            List<Change> list = new ArrayList<>(mPending.size());
+            for (Map.Entry<String, Pending> entry : mPending.entrySet()) {
+                Pending pending = entry.getValue();
+                if (pending.current != pending.initial) {
+                    list.add(new Change(entry.getKey(), pending.current));
+                }
+            }
+            mPending.clear();
+            changes = Collections.unmodifiableList(list);
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (mBatches) {
+            mBatches.add(changes);
+            if (mCommitting) {
+                return;
+            }
+            mCommitting = true;
+        }
+        executeCommit();
+    }
+
+    /**
+     * 一次commit结束后，还有等待的窗口时继续提交
+     */
+    private void scheduleNextCommit() {
+        synchronized (mBatches) {
+            if (mBatches.isEmpty()) {
+                mCommitting = false;
+                return;
+            }
+        }
+        executeCommit();
+    }
+
+    /**
+     * executor拒绝执行时（比如已经shutdown）不能一直停在提交中的状态，否则之后的窗口都不会再提交
+     */
+    private void executeCommit() {
+        try {
+            mExecutor.execute(mCommitRunnable);
+        } catch (RejectedExecutionException e) {
+            List<Change> changes;
+            synchronized (mBatches) {
+                mCommitting = false;
+                changes = mBatches.peek();
+            }
+            reportFailure(changes, e);
+        }
+    }
+
+    private void reportFailure(List<Change> changes, Throwable error) {
+        OnCommitFailedListener listener = mOnCommitFailedListener;
+        if (listener != null) {
+            listener.onCommitFailed(changes, error);
+        } else {
+            LOGGER.log(Level.WARNING, "commit failed: " + changes, error);
+        }
+    }
+
+    /**
+     * 窗口内还没有提交的item数量
+     */
+    public int getPendingCount() {
+        synchronized (mPending) {
+            return mPending.size();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package me.yimu.magicbutton;
+
+/**
+ * 把按钮的点击回调交给{@link VoteDispatcher}合并之后再提交
+ * <p>
+ * 按钮复用时（bind到新的item）需要重新设置listener。
+ */
+public final class VoteDispatchers {
+
+    private VoteDispatchers() {
+    }
+
+    public static FrodoVoteButton.OnVoteListener forVoteButton(final VoteDispatcher dispatcher,
+                                                               final String itemId) {
+        return new FrodoVoteButton.OnVoteListener() {
+            @Override
+            public void onVote() {
+                dispatcher.toggle(itemId, true);
+            }
+
+            @Override
+            public void onCancelVote() {
+                dispatcher.toggle(itemId, false);
+            }
+        };
+    }
+
+    public static FrodoVoteTextView.OnVoteListener forVoteTextView(final VoteDispatcher dispatcher,
+                                                                   final String itemId) {
+        return new FrodoVoteTextView.OnVoteListener() {
+            @Override
+            public void onVote() {
+                dispatcher.toggle(itemId, true);
+            }
+
+            @Override
+            public void onCancelVote() {
+                dispatcher.toggle(itemId, false);
+            }
+        };
+    }
+
+    public static FrodoLikeTextView.OnLikeListener forLikeTextView(final VoteDispatcher dispatcher,
+                                                                   final String itemId) {
+        return new FrodoLikeTextView.OnLikeListener() {
+            @Override
+            public void onLike() {
+                dispatcher.toggle(itemId, true);
+            }
+
+            @Override
+            public void onCancelLike() {
+                dispatcher.toggle(itemId, false);
+            }
+        };
+    }
+}
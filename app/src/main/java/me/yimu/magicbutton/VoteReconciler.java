@@ -0,0 +1,193 @@
+package me.yimu.magicbutton;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 点赞数的乐观更新和服务端校正
+ * <p>
+ * 每个item保存服务端确认过的状态，以及本地还没有确认的操作。每个操作记录的是点击之后的目标状态而不是+1/-1，
+ * 显示的状态为最后一个未确认操作的状态，数字为服务端数字加上显示状态和服务端状态的差，
+ * 所以中间某个操作失败时只需要去掉这一个操作，不会影响其他操作。
+ * 只有显示的数字或状态变化时才回调{@link Listener}，按钮已经乐观更新过的结果不会再回调，避免闪烁。
+ * 线程安全，回调在构造时传入的executor上执行（一般为主线程）。不依赖android，可以直接在JVM上测试。
+ */
+public class VoteReconciler {
+
+    public interface Listener {
+        /**
+         * 显示的状态需要更新，一般调用按钮的bind(count, voted, false)
+         */
+        void onReconciled(String itemId, int count, boolean voted);
+    }
+
+    private static class Op {
+        final long id;
+        final boolean voted;
+
+        Op(long id, boolean voted) {
+            this.id = id;
+            this.voted = voted;
+        }
+    }
+
+    private static class Item {
+        int serverCount;
+        boolean serverVoted;
+        final ArrayList<Op> pending = new ArrayList<>(2);
+        int displayedCount;
+        boolean displayedVoted;
+
+        boolean votedNow() {
+            return pending.isEmpty() ? serverVoted : pending.get(pending.size() - 1).voted;
+        }
+
+        int countNow() {
+            boolean voted = votedNow();
+            if (voted == serverVoted) {
+                return serverCount;
+            }
+            return voted ? serverCount + 1 : serverCount - 1;
+        }
+    }
+
+    private final Map<String, Item> mItems = new HashMap<>();
+    // 未确认的操作id -> itemId，请求结束时直接找到item
+    private final Map<Long, String> mOpItems = new HashMap<>();
+    private final Executor mCallbackExecutor;
+    private final Listener mListener;
+    private long mNextOpId = 1;
+
+    public VoteReconciler(Executor callbackExecutor, Listener listener) {
+        mCallbackExecutor = callbackExecutor;
+        mListener = listener;
+    }
+
+    /**
+     * 绑定item时调用，设置服务端的状态
+     */
+    public void setServerState(String itemId, int count, boolean voted) {
+        synchronized (mItems) {
+            Item item = mItems.get(itemId);
+            if (item == null) {
+                item = new Item();
+                item.serverCount = count;
+                item.serverVoted = voted;
+                item.displayedCount = count;
+                item.displayedVoted = voted;
+                mItems.put(itemId, item);
+                return;
+            }
+            item.serverCount = count;
+            item.serverVoted = voted;
+            // 还没有确认的操作仍然叠加在新的服务端状态上
+            notifyIfChanged(itemId, item);
+        }
+    }
+
+    /**
+     * 本地点击，按钮已经显示了点击之后的结果
+     *
+     * @return 操作id，请求结束后调用{@link #confirm(long)}或{@link #fail(long)}
+     */
+    public long begin(String itemId, boolean voted) {
+        synchronized (mItems) {
+            Item item = mItems.get(itemId);
+            if (item == null) {
+                throw new IllegalStateException("setServerState not called for " + itemId);
+            }
+            long id = mNextOpId++;
+            item.pending.add(new Op(id, voted));
+            mOpItems.put(id, itemId);
+            item.displayedCount = item.countNow();
+            item.displayedVoted = item.votedNow();
+            return id;
+        }
+    }
+
+    /**
+     * 请求成功，服务端状态变为这个操作的状态，之前的操作都已经被覆盖
+     */
+    public void confirm(long opId) {
+        synchronized (mItems) {
+            String itemId = mOpItems.get(opId);
+            if (itemId == null) {
+                return;
+            }
+            Item item = mItems.get(itemId);
+            int index = indexOf(item, opId);
+            Op op = item.pending.get(index);
+            if (op.voted != item.serverVoted) {
+                item.serverCount += op.voted ? 1 : -1;
+                item.serverVoted = op.voted;
+            }
+            // 之前的操作被覆盖，它们之后的响应直接忽略
+            for (int i = 0; i <= index; i++) {
+                mOpItems.remove(item.pending.get(i).id);
+            }
+            item.pending.subList(0, index + 1).clear();
+            notifyIfChanged(itemId, item);
+        }
+    }
+
+    /**
+     * 请求失败，只回滚这一个操作
+     */
+    public void fail(long opId) {
+        synchronized (mItems) {
+            String itemId = mOpItems.remove(opId);
+            if (itemId == null) {
+                return;
+            }
+            Item item = mItems.get(itemId);
+            item.pending.remove(indexOf(item, opId));
+            notifyIfChanged(itemId, item);
+        }
+    }
+
+    public boolean hasPending(String itemId) {
+        synchronized (mItems) {
+            Item item = mItems.get(itemId);
+            return item != null && !item.pending.isEmpty();
+        }
+    }
+
+    /**
+     * item不再显示并且没有未确认的操作时可以移除
+     */
+    public void remove(String itemId) {
+        synchronized (mItems) {
+            Item item = mItems.get(itemId);
+            if (item != null && item.pending.isEmpty()) {
+                mItems.remove(itemId);
+            }
+        }
+    }
+
+    private static int indexOf(Item item, long opId) {
+        for (int i = 0; i < item.pending.size(); i++) {
+            if (item.pending.get(i).id == opId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void notifyIfChanged(final String itemId, Item item) {
+        final int count = item.countNow();
+        final boolean voted = item.votedNow();
+        if (count == item.displayedCount && voted == item.displayedVoted) {
+            return;
+        }
+        item.displayedCount = count;
+        item.displayedVoted = voted;
+        mCallbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mListener.onReconciled(itemId, count, voted);
+            }
+        });
+    }
+}
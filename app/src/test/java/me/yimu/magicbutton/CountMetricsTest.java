@@ -0,0 +1,50 @@
+package me.yimu.magicbutton;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 数字宽度由宽度表累加得到
+ */
+public class CountMetricsTest {
+
+    private static final float DELTA = 0.0001f;
+
+    // 6、8比其他数字高，7、9的下沿在baseline下面
+    private final CountMetrics mMetrics = new CountMetrics(
+            new float[]{10, 5, 10, 10, 10, 10, 10, 10, 10, 11}, 6, -12, 3,
+            new float[]{-9, -9, -9, -9, -9, -9, -10, -9, -10, -9},
+            new float[]{0, 0, 0, 0, 0, 0, 0, 2, 0, 2}, -5, -4);
+
+    @Test
+    public void measure_sumsDigitWidths() throws Exception {
+        assertEquals(10f, mMetrics.measure(0), DELTA);
+        assertEquals(15f, mMetrics.measure(10), DELTA);
+        assertEquals(5f + 10f + 11f, mMetrics.measure(129), DELTA);
+    }
+
+    @Test
+    public void measure_negativeAddsMinus() throws Exception {
+        assertEquals(6f + 5f, mMetrics.measure(-1), DELTA);
+        // Integer.MIN_VALUE取反会溢出
+        assertEquals(6f + 5f + 10f * 9, mMetrics.measure(Integer.MIN_VALUE), DELTA);
+    }
+
+    @Test
+    public void centerOffset_matchesBoundsCenter() throws Exception {
+        assertEquals(4.5f, mMetrics.getCenterOffsetY(1), DELTA);
+        assertEquals(9f, mMetrics.getBoundsHeight(1), DELTA);
+    }
+
+    @Test
+    public void bounds_unionOfCharacters() throws Exception {
+        // 按实际的数字字符串，不是0-9整体
+        assertEquals(10f, mMetrics.getBoundsHeight(16), DELTA);
+        assertEquals(11f, mMetrics.getBoundsHeight(17), DELTA);
+        assertEquals(12f, mMetrics.getBoundsHeight(68179), DELTA);
+        assertEquals(4f, mMetrics.getCenterOffsetY(68179), DELTA);
+        // 负号在数字中间，不影响bounds
+        assertEquals(9f, mMetrics.getBoundsHeight(-1), DELTA);
+    }
+}
@@ -0,0 +1,54 @@
+package me.yimu.magicbutton;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CountText}的缓存：数字不变时返回同一个String
+ * <p>
+ * 只测缓存本身，按钮绘制路径上的分配（包括数字文字）由{@link WidgetAllocationTest}统计
+ */
+public class CountTextTest {
+
+    @Test
+    public void sameCount_returnsCachedText() throws Exception {
+        CountText countText = new CountText();
+        String text = countText.get(42);
+        assertEquals("42", text);
+        assertSame(text, countText.get(42));
+    }
+
+    @Test
+    public void countChanged_updatesText() throws Exception {
+        CountText countText = new CountText();
+        countText.get(41);
+        assertEquals("42", countText.get(42));
+        assertEquals("-1", countText.get(-1));
+    }
+
+    @Test
+    public void sameCount_doesNotAllocate() throws Exception {
+        CountText countText = new CountText();
+        countText.get(1024);
+        // 预热，避免把JIT和类加载算进来
+        for (int i = 0; i < 100000; i++) {
+            countText.get(1024);
+        }
+        long before = allocatedBytes();
+        for (int i = 0; i < 100000; i++) {
+            countText.get(1024);
+        }
+        long allocated = allocatedBytes() - before;
+        // 读取分配量本身会有少量开销，100000次调用只允许这部分误差
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
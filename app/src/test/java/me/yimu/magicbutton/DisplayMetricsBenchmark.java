@@ -0,0 +1,203 @@
+package me.yimu.magicbutton;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Rect;
+import android.util.DisplayMetrics;
+import android.view.WindowManager;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Locale;
+
+/**
+ * {@link UIUtils}屏幕尺寸方法的单次调用耗时，缓存之前（原来的实现）和之后对比
+ * <p>
+ * 和{@link RenderBenchmark}一样默认跳过，用./gradlew testDebugUnitTest -PrenderBenchmark运行，
+ * 结果输出到控制台和build/reports/display-metrics-benchmark.txt。
+ * Robolectric的WindowManager是shadow，真机上查WindowManager的耗时更高，这里只适合前后对比。
+ * Robolectric的窗口没有状态栏，getStatusBarHeight测的是0的缓存。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class DisplayMetricsBenchmark {
+
+    private static final String REPORT = "build/reports/display-metrics-benchmark.txt";
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int ROUNDS = 10;
+    private static final int CALLS = 20000;
+
+    // 防止调用被优化掉
+    private long mSink;
+
+    @Test
+    public void benchmark() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("renderBenchmark"));
+        final Activity activity = Robolectric.buildActivity(Activity.class).create().start().resume()
+                .visible().get();
+        DisplayMetricsCache.invalidate();
+
+        Call[] calls = {
+                new Call("getDisplayWidth") {
+                    @Override
+                    long before(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += uncachedDisplayWidth(activity);
+                        }
+                        return sum;
+                    }
+
+                    @Override
+                    long after(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += UIUtils.getDisplayWidth(activity);
+                        }
+                        return sum;
+                    }
+                },
+                new Call("getDisplayHeight") {
+                    @Override
+                    long before(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += uncachedDisplayHeight(activity);
+                        }
+                        return sum;
+                    }
+
+                    @Override
+                    long after(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += UIUtils.getDisplayHeight(activity);
+                        }
+                        return sum;
+                    }
+                },
+                new Call("getDisplayDensity") {
+                    @Override
+                    long before(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += (long) uncachedDisplayDensity(activity);
+                        }
+                        return sum;
+                    }
+
+                    @Override
+                    long after(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += (long) UIUtils.getDisplayDensity(activity);
+                        }
+                        return sum;
+                    }
+                },
+                new Call("getStatusBarHeight") {
+                    @Override
+                    long before(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += uncachedStatusBarHeight(activity);
+                        }
+                        return sum;
+                    }
+
+                    @Override
+                    long after(int calls) {
+                        long sum = 0;
+                        for (int i = 0; i < calls; i++) {
+                            sum += UIUtils.getStatusBarHeight(activity);
+                        }
+                        return sum;
+                    }
+                },
+        };
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.US, "%-20s %8s %8s%n", "method", "before", "after"));
+        for (Call call : calls) {
+            report.append(String.format(Locale.US, "%-20s %8d %8d%n", call.mName,
+                    best(call, true), best(call, false)));
+        }
+        report.append("ns/call\n");
+        System.out.print(report);
+
+        File file = new File(REPORT);
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(report.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private long best(Call call, boolean before) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            mSink += before ? call.before(CALLS) : call.after(CALLS);
+            long nanos = (System.nanoTime() - start) / CALLS;
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, nanos);
+            }
+        }
+        return best;
+    }
+
+    private abstract static class Call {
+        final String mName;
+
+        Call(String name) {
+            mName = name;
+        }
+
+        /**
+         * 调用calls次，返回值的和
+         */
+        abstract long before(int calls);
+
+        abstract long after(int calls);
+    }
+
+    /**
+     * 原来UIUtils的实现
+     */
+    private static int uncachedDisplayWidth(Context context) {
+        WindowManager wm = (WindowManager) context.getSystemService("window");
+        DisplayMetrics metrics = new DisplayMetrics();
+        wm.getDefaultDisplay().getMetrics(metrics);
+        return metrics.widthPixels;
+    }
+
+    private static int uncachedDisplayHeight(Context context) {
+        WindowManager wm = (WindowManager) context.getSystemService("window");
+        DisplayMetrics metrics = new DisplayMetrics();
+        wm.getDefaultDisplay().getMetrics(metrics);
+        return metrics.heightPixels;
+    }
+
+    private static float uncachedDisplayDensity(Context context) {
+        WindowManager wm = (WindowManager) context.getSystemService("window");
+        DisplayMetrics metrics = new DisplayMetrics();
+        wm.getDefaultDisplay().getMetrics(metrics);
+        return metrics.density;
+    }
+
+    private static int uncachedStatusBarHeight(Activity activity) {
+        Rect frame = new Rect();
+        activity.getWindow().getDecorView().getWindowVisibleDisplayFrame(frame);
+        return frame.top;
+    }
+}
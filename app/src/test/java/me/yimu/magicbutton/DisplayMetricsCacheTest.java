@@ -0,0 +1,95 @@
+package me.yimu.magicbutton;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.util.DisplayMetrics;
+import android.view.WindowManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ActivityController;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class DisplayMetricsCacheTest {
+
+    private Application mApp;
+
+    @Before
+    public void setUp() throws Exception {
+        mApp = RuntimeEnvironment.application;
+        DisplayMetricsCache.invalidate();
+    }
+
+    @Test
+    public void matchesDisplay() throws Exception {
+        DisplayMetrics metrics = new DisplayMetrics();
+        ((WindowManager) mApp.getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay().getMetrics(metrics);
+        assertEquals(metrics.widthPixels, UIUtils.getDisplayWidth(mApp));
+        assertEquals(metrics.heightPixels, UIUtils.getDisplayHeight(mApp));
+        assertEquals(metrics.density, UIUtils.getDisplayDensity(mApp), 0f);
+        assertEquals(0, UIUtils.getDisplayWidth(null));
+    }
+
+    @Test
+    public void refreshedOnConfigurationChange() throws Exception {
+        DisplayMetricsCache.Snapshot snapshot = DisplayMetricsCache.get(mApp);
+        assertSame(snapshot, DisplayMetricsCache.get(mApp));
+
+        mApp.onConfigurationChanged(new Configuration(mApp.getResources().getConfiguration()));
+        assertNotSame(snapshot, DisplayMetricsCache.get(mApp));
+    }
+
+    @Test
+    public void refreshedOnWindowAttach() throws Exception {
+        DisplayMetricsCache.Snapshot snapshot = DisplayMetricsCache.get(mApp);
+        ActivityController<Activity> controller = Robolectric.buildActivity(Activity.class).create().start();
+        assertSame(snapshot, DisplayMetricsCache.get(mApp));
+
+        controller.resume().visible();
+        assertNotSame(snapshot, DisplayMetricsCache.get(mApp));
+        assertEquals(0, UIUtils.getStatusBarHeight(controller.get()));
+    }
+
+    @Test
+    public void snapshotPerConfiguration() throws Exception {
+        DisplayMetricsCache.Snapshot snapshot = DisplayMetricsCache.get(mApp);
+        // 分屏时Activity的配置和Application不同
+        Configuration config = new Configuration(mApp.getResources().getConfiguration());
+        config.screenWidthDp = config.screenWidthDp / 2;
+        final Resources resources = new Resources(mApp.getAssets(),
+                mApp.getResources().getDisplayMetrics(), config);
+        Context window = new ContextWrapper(mApp) {
+            @Override
+            public Resources getResources() {
+                return resources;
+            }
+        };
+        DisplayMetricsCache.Snapshot windowSnapshot = DisplayMetricsCache.get(window);
+        assertNotSame(snapshot, windowSnapshot);
+
+        assertSame(snapshot, DisplayMetricsCache.get(mApp));
+        assertSame(windowSnapshot, DisplayMetricsCache.get(window));
+    }
+
+    @Test
+    public void staleSnapshotIsDropped() throws Exception {
+        DisplayMetricsCache.Snapshot snapshot = DisplayMetricsCache.get(mApp);
+        UIUtils.refreshDisplayMetrics();
+        DisplayMetricsCache.Snapshot fresh = DisplayMetricsCache.get(mApp);
+        assertNotSame(snapshot, fresh);
+        assertSame(fresh, DisplayMetricsCache.get(mApp));
+    }
+}
@@ -0,0 +1,100 @@
+package me.yimu.magicbutton;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+/**
+ * 默认参数要和原来放射点的效果一致：400ms减速扩散，之后400ms淡出
+ */
+public class EmitParticlesTest {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void defaults_spreadThenFade() throws Exception {
+        EmitParticles particles = new EmitParticles(4, 12);
+        assertEquals(800f, particles.getDuration(), DELTA);
+
+        particles.update(0);
+        assertEquals(4f, particles.getRadius(), DELTA);
+        assertEquals(255, particles.getAlpha());
+
+        // 时间过半时减速插值为0.75
+        particles.update(200);
+        assertEquals(4f + 0.75f * 8f, particles.getRadius(), DELTA);
+        assertEquals(255, particles.getAlpha());
+
+        particles.update(600);
+        assertEquals(12f, particles.getRadius(), DELTA);
+        assertEquals(127, particles.getAlpha());
+
+        particles.update(800);
+        assertEquals(0, particles.getAlpha());
+    }
+
+    @Test
+    public void points_evenlySpacedAroundCenter() throws Exception {
+        EmitParticles particles = new EmitParticles(0, 10);
+        particles.setCount(4);
+        particles.setCenter(20, 30);
+        particles.update(10000);
+        float[] points = particles.getPoints();
+        assertEquals(30f, points[0], DELTA);
+        assertEquals(30f, points[1], DELTA);
+        assertEquals(20f, points[2], DELTA);
+        assertEquals(40f, points[3], DELTA);
+        assertEquals(10f, points[4], DELTA);
+        assertEquals(30f, points[5], DELTA);
+        assertEquals(20f, points[6], DELTA);
+        assertEquals(20f, points[7], DELTA);
+    }
+
+    @Test
+    public void speedAndFade_changeDuration() throws Exception {
+        EmitParticles particles = new EmitParticles(0, 10);
+        particles.setSpeed(0.1f);
+        particles.setFadeDuration(50);
+        assertEquals(100f, particles.getSpreadDuration(), DELTA);
+        assertEquals(150f, particles.getDuration(), DELTA);
+        particles.update(100);
+        assertEquals(255, particles.getAlpha());
+        particles.update(150);
+        assertEquals(0, particles.getAlpha());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void count_limited() throws Exception {
+        new EmitParticles(0, 10).setCount(EmitParticles.MAX_COUNT + 1);
+    }
+
+    @Test
+    public void trigTable_matchesMath() throws Exception {
+        for (int i = 0; i < TrigTable.SIZE; i += 7) {
+            double angle = i * 2 * Math.PI / TrigTable.SIZE;
+            assertEquals(Math.sin(angle), TrigTable.sin(i), 1e-6);
+            assertEquals(Math.cos(angle), TrigTable.cos(i), 1e-6);
+        }
+    }
+
+    @Test
+    public void update_doesNotAllocate() throws Exception {
+        EmitParticles particles = new EmitParticles(4, 12);
+        particles.setCount(EmitParticles.MAX_COUNT);
+        // 预热，避免把JIT和类加载算进来
+        for (int i = 0; i < 1000; i++) {
+            particles.update(i % 800);
+        }
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1000; i++) {
+            particles.update(i % 800);
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
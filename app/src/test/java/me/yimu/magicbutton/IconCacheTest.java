@@ -0,0 +1,77 @@
+package me.yimu.magicbutton;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.util.DisplayMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class IconCacheTest {
+
+    private Resources mRes;
+    private int mDensityDpi;
+
+    @Before
+    public void setUp() throws Exception {
+        mRes = RuntimeEnvironment.application.getResources();
+        mDensityDpi = mRes.getDisplayMetrics().densityDpi;
+        IconCache.clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mRes.getDisplayMetrics().densityDpi = mDensityDpi;
+        IconCache.clear();
+    }
+
+    @Test
+    public void keptAfterLastRelease() throws Exception {
+        Bitmap icon = IconCache.acquire(mRes, R.drawable.ic_vote);
+        assertSame(icon, IconCache.acquire(mRes, R.drawable.ic_vote));
+        assertEquals(2, IconCache.getRefCount(icon));
+        IconCache.release(icon);
+        IconCache.release(icon);
+        assertEquals(0, IconCache.getRefCount(icon));
+
+        // 列表的一行重新bind，不需要重新decode
+        assertSame(icon, IconCache.acquire(mRes, R.drawable.ic_vote));
+        assertEquals(1, IconCache.getRefCount(icon));
+    }
+
+    @Test
+    public void releaseAfterDensityChange() throws Exception {
+        Bitmap icon = IconCache.acquire(mRes, R.drawable.ic_voted);
+        mRes.getDisplayMetrics().densityDpi = mDensityDpi * 2;
+        IconCache.release(icon);
+        assertEquals(0, IconCache.getRefCount(icon));
+
+        mRes.getDisplayMetrics().densityDpi = mDensityDpi;
+        assertSame(icon, IconCache.acquire(mRes, R.drawable.ic_voted));
+    }
+
+    @Test
+    public void unusedIconsTrimmed() throws Exception {
+        // 每个density一份，超出LRU的大小之后最早release的被移除
+        Bitmap[] icons = new Bitmap[9];
+        for (int i = 0; i < icons.length; i++) {
+            mRes.getDisplayMetrics().densityDpi = DisplayMetrics.DENSITY_MEDIUM + i;
+            icons[i] = IconCache.acquire(mRes, R.drawable.ic_vote);
+            IconCache.release(icons[i]);
+        }
+        assertEquals(-1, IconCache.getRefCount(icons[0]));
+        for (int i = 1; i < icons.length; i++) {
+            assertEquals(0, IconCache.getRefCount(icons[i]));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package me.yimu.magicbutton;
+
+import org.junit.Test;
+
+import static me.yimu.magicbutton.MagicTimelines.CHANNEL_ROTATION;
+import static me.yimu.magicbutton.MagicTimelines.CHANNEL_SCALE;
+import static org.junit.Assert.*;
+
+/**
+ * 关键帧时间线要和原来分段的ValueAnimator效果一致
+ */
+public class KeyframeTimelineTest {
+
+    private static final float DELTA = 0.0001f;
+
+    @Test
+    public void voteIcon_matchesKeyframes() throws Exception {
+        KeyframeTimeline timeline = MagicTimelines.VOTE_ICON;
+        assertEquals(550f, timeline.getDuration(), DELTA);
+        assertEquals(0f, timeline.getValue(CHANNEL_ROTATION, 0), DELTA);
+        assertEquals(20f, timeline.getValue(CHANNEL_ROTATION, 50), DELTA);
+        assertEquals(-20f, timeline.getValue(CHANNEL_ROTATION, 250), DELTA);
+        assertEquals(1.3f, timeline.getValue(CHANNEL_SCALE, 250), DELTA);
+        assertEquals(1.1f, timeline.getValue(CHANNEL_SCALE, 450), DELTA);
+        assertEquals(1.0f, timeline.getValue(CHANNEL_SCALE, 550), DELTA);
+    }
+
+    @Test
+    public void voteIcon_secondStepDecelerates() throws Exception {
+        // 第2步 20 -> -20，时间过半时减速插值为0.75
+        float rotation = MagicTimelines.VOTE_ICON.getValue(CHANNEL_ROTATION, 150);
+        assertEquals(20f - 0.75f * 40f, rotation, DELTA);
+    }
+
+    @Test
+    public void outOfRange_clampsToEnds() throws Exception {
+        KeyframeTimeline timeline = MagicTimelines.SCALE_ICON;
+        assertEquals(1.0f, timeline.getValue(CHANNEL_SCALE, -10), DELTA);
+        assertEquals(1.0f, timeline.getValue(CHANNEL_SCALE, 10000), DELTA);
+        assertEquals(1.15f, timeline.getValue(CHANNEL_SCALE, 150), DELTA);
+    }
+}
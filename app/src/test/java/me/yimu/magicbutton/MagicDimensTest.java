@@ -0,0 +1,31 @@
+package me.yimu.magicbutton;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MagicDimensTest {
+
+    @Test
+    public void sharedPerConfiguration() throws Exception {
+        MagicDimens dimens = MagicDimens.of(2f, 2f);
+        assertSame(dimens, MagicDimens.of(2f, 2f));
+
+        // 修改字体大小之后只有sp的尺寸变化
+        MagicDimens larger = MagicDimens.of(2f, 2.6f);
+        assertNotSame(dimens, larger);
+        assertEquals(dimens.voteBorderRadius, larger.voteBorderRadius);
+        assertEquals(24, dimens.voteTextSize);
+        assertEquals(31, larger.voteTextSize);
+        assertNotSame(larger, MagicDimens.of(2f, 2f));
+    }
+
+    @Test
+    public void roundsLikeDip2px() throws Exception {
+        MagicDimens dimens = MagicDimens.of(1.5f, 1.5f);
+        assertEquals(2, dimens.dp(1));
+        assertEquals(3, dimens.voteBorderRadius);
+        assertEquals(30, dimens.slotSpacing);
+        assertEquals(14, dimens.likeTextSize);
+    }
+}
@@ -0,0 +1,92 @@
+package me.yimu.magicbutton;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class MagicHistogramTest {
+
+    @Test
+    public void record_fillsBuckets() throws Exception {
+        MagicHistogram histogram = new MagicHistogram(new long[]{10, 20, 40});
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(15);
+        histogram.record(100);
+        MagicHistogram.Snapshot snapshot = histogram.snapshot();
+        assertArrayEquals(new long[]{2, 1, 0, 1}, snapshot.counts);
+        assertEquals(4, snapshot.count);
+        assertEquals(130, snapshot.sum);
+        assertEquals(100, snapshot.max);
+        assertEquals(32, snapshot.getMean());
+    }
+
+    @Test
+    public void percentile_returnsBucketBound() throws Exception {
+        MagicHistogram histogram = new MagicHistogram(new long[]{10, 20, 40});
+        for (int i = 0; i < 90; i++) {
+            histogram.record(1);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(30);
+        }
+        histogram.record(1000);
+        MagicHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.getPercentile(50));
+        assertEquals(10, snapshot.getPercentile(90));
+        assertEquals(40, snapshot.getPercentile(99));
+        assertEquals(1000, snapshot.getPercentile(100));
+    }
+
+    @Test
+    public void snapshot_doesNotShareArrays() throws Exception {
+        MagicHistogram histogram = new MagicHistogram(new long[]{10, 20, 40});
+        histogram.record(5);
+        MagicHistogram.Snapshot snapshot = histogram.snapshot();
+        snapshot.bounds[0] = 1000;
+        snapshot.counts[0] = 0;
+        histogram.record(15);
+        MagicHistogram.Snapshot next = histogram.snapshot();
+        assertArrayEquals(new long[]{10, 20, 40}, next.bounds);
+        assertArrayEquals(new long[]{1, 1, 0, 0}, next.counts);
+    }
+
+    @Test
+    public void report_resetsAndNotifies() throws Exception {
+        MagicMetrics metrics = new MagicMetrics("test");
+        final MagicMetrics.Report[] reported = new MagicMetrics.Report[1];
+        metrics.setListener(new MagicMetrics.Listener() {
+            @Override
+            public void onReport(MagicMetrics metrics, MagicMetrics.Report report) {
+                reported[0] = report;
+            }
+        });
+        metrics.recordDraw(1000);
+        metrics.recordFrameInterval(16000000);
+        metrics.report();
+        assertEquals(1, reported[0].draw.count);
+        assertEquals(1, reported[0].frameInterval.count);
+        assertEquals(0, reported[0].measure.count);
+        assertEquals(0, metrics.snapshot().draw.count);
+    }
+
+    @Test
+    public void record_doesNotAllocate() throws Exception {
+        MagicHistogram histogram = new MagicHistogram(MagicMetrics.DURATION_BOUNDS);
+        // 预热，避免把JIT和类加载算进来
+        for (int i = 0; i < 100000; i++) {
+            histogram.record(i * 1000L);
+        }
+        com.sun.management.ThreadMXBean bean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            histogram.record(i * 1000L);
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+}
@@ -0,0 +1,146 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class MagicVoteDrawableTest {
+
+    private final ManualFrameClock mClock = new ManualFrameClock();
+    private final RecordingCallback mCallback = new RecordingCallback();
+    private MagicVoteDrawable mDrawable;
+    private int mToggles;
+    private int mResizes;
+
+    @Before
+    public void setUp() throws Exception {
+        mClock.install();
+        mDrawable = MagicVoteDrawable.createVoteText(RuntimeEnvironment.application);
+        mDrawable.setCallback(mCallback);
+        mDrawable.setOnToggleListener(new MagicVoteDrawable.OnToggleListener() {
+            @Override
+            public void onToggle(MagicVoteDrawable drawable, boolean on) {
+                mToggles++;
+            }
+
+            @Override
+            public void onIntrinsicSizeChanged(MagicVoteDrawable drawable) {
+                mResizes++;
+            }
+        });
+        mDrawable.bind(9, false, false);
+        // 留出空白，动画只覆盖图标区域
+        mDrawable.setPadding(10, 10, 10, 10);
+        mDrawable.setBounds(100, 20, 100 + mDrawable.getIntrinsicWidth(),
+                20 + mDrawable.getIntrinsicHeight());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mClock.uninstall();
+    }
+
+    @Test
+    public void toggleAnimatesAndSettles() throws Exception {
+        mDrawable.toggle();
+        assertTrue(mDrawable.isOn());
+        assertEquals(10, mDrawable.getCount());
+        assertEquals(1, mToggles);
+        // 9 -> 10 多了一位
+        assertEquals(1, mResizes);
+
+        int frames = 0;
+        mCallback.mInvalidates = 0;
+        while (mClock.hasFrame()) {
+            mClock.step();
+            frames++;
+        }
+        assertTrue(frames > 0);
+        assertTrue(mCallback.mInvalidates > 0);
+        // 动画帧只重绘drawable范围内变化的部分
+        assertFalse(mCallback.mMaxDirty.isEmpty());
+        assertTrue(mCallback.mMaxDirty.toShortString(), mDrawable.getBounds().contains(mCallback.mMaxDirty));
+        assertTrue(mDrawable.isOn());
+        assertEquals(mDrawable.getBounds(), mDrawable.getDirtyBounds());
+    }
+
+    @Test
+    public void cancelRevertsCount() throws Exception {
+        mDrawable.toggle();
+        mDrawable.cancelAll();
+        assertFalse(mDrawable.isOn());
+        assertEquals(9, mDrawable.getCount());
+        runFrames();
+        assertFalse(mDrawable.isOn());
+        assertEquals(9, mDrawable.getCount());
+    }
+
+    @Test
+    public void detachEndsAnimation() throws Exception {
+        mDrawable.toggle();
+        mDrawable.onDetachedFromWindow();
+        // 保留点击结果
+        assertTrue(mDrawable.isOn());
+        assertEquals(10, mDrawable.getCount());
+        mDrawable.onDetachedFromWindow();
+        mCallback.mInvalidates = 0;
+        runFrames();
+        assertEquals(0, mCallback.mInvalidates);
+
+        mDrawable.onAttachedToWindow();
+        mDrawable.toggle();
+        assertTrue(mClock.hasFrame());
+        runFrames();
+        assertFalse(mDrawable.isOn());
+        assertEquals(2, mToggles);
+    }
+
+    @Test
+    public void notToggleable() throws Exception {
+        mDrawable.setToggleable(false);
+        mDrawable.toggle();
+        assertFalse(mDrawable.isOn());
+        assertEquals(0, mToggles);
+    }
+
+    private void runFrames() {
+        while (mClock.hasFrame()) {
+            mClock.step();
+        }
+    }
+
+    private class RecordingCallback implements Drawable.Callback {
+
+        int mInvalidates;
+        final Rect mMaxDirty = new Rect();
+
+        @Override
+        public void invalidateDrawable(Drawable who) {
+            mInvalidates++;
+            Rect dirty = who.getDirtyBounds();
+            if (!dirty.equals(who.getBounds())) {
+                mMaxDirty.union(dirty);
+            }
+        }
+
+        @Override
+        public void scheduleDrawable(Drawable who, Runnable what, long when) {
+        }
+
+        @Override
+        public void unscheduleDrawable(Drawable who, Runnable what) {
+        }
+    }
+}
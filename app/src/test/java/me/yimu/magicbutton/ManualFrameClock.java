@@ -0,0 +1,39 @@
+package me.yimu.magicbutton;
+
+/**
+ * 测试控制的帧时钟，替换{@link MagicAnimationDriver}的帧来源，每次step推进固定的一帧
+ */
+class ManualFrameClock implements MagicAnimationDriver.FrameScheduler {
+
+    static final long FRAME_NANOS = 16000000L;
+
+    private final MagicAnimationDriver mDriver = MagicAnimationDriver.getInstance();
+    private long mFrameTimeNanos = 1000 * FRAME_NANOS;
+    private boolean mPosted;
+
+    void install() {
+        mDriver.setFrameScheduler(this);
+    }
+
+    void uninstall() {
+        mDriver.setFrameScheduler(null);
+    }
+
+    @Override
+    public void postFrame() {
+        mPosted = true;
+    }
+
+    /**
+     * 是否有动画在等待下一帧
+     */
+    boolean hasFrame() {
+        return mPosted;
+    }
+
+    void step() {
+        mPosted = false;
+        mFrameTimeNanos += FRAME_NANOS;
+        mDriver.doFrame(mFrameTimeNanos);
+    }
+}
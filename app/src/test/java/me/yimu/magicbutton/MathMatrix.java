@@ -0,0 +1,210 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Matrix;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.internal.ShadowExtractor;
+
+/**
+ * 真正做矩阵运算的Matrix shadow
+ * <p>
+ * Robolectric 3.1自带的ShadowMatrix只把操作记录成String，拿不到数值，而且post操作会一直累积。
+ * 这里只实现按钮用到的仿射变换，数值和Android的Matrix一致，用于比较绘制结果。
+ */
+@Implements(Matrix.class)
+public class MathMatrix {
+
+    private final float[] mValues = new float[9];
+    private final float[] mTemp = new float[9];
+    private final float[] mOp = new float[9];
+
+    public MathMatrix() {
+        setIdentity(mValues);
+    }
+
+    public void __constructor__(Matrix src) {
+        set(src);
+    }
+
+    @Implementation
+    public void reset() {
+        setIdentity(mValues);
+    }
+
+    @Implementation
+    public void set(Matrix src) {
+        if (src == null) {
+            reset();
+        } else {
+            System.arraycopy(shadowOf(src).mValues, 0, mValues, 0, 9);
+        }
+    }
+
+    @Implementation
+    public boolean isIdentity() {
+        return mValues[0] == 1 && mValues[1] == 0 && mValues[2] == 0
+                && mValues[3] == 0 && mValues[4] == 1 && mValues[5] == 0
+                && mValues[6] == 0 && mValues[7] == 0 && mValues[8] == 1;
+    }
+
+    @Implementation
+    public void getValues(float[] values) {
+        System.arraycopy(mValues, 0, values, 0, 9);
+    }
+
+    @Implementation
+    public void setValues(float[] values) {
+        System.arraycopy(values, 0, mValues, 0, 9);
+    }
+
+    @Implementation
+    public void setTranslate(float dx, float dy) {
+        translate(mValues, dx, dy);
+    }
+
+    @Implementation
+    public void setScale(float sx, float sy) {
+        scale(mValues, sx, sy, 0, 0);
+    }
+
+    @Implementation
+    public void setScale(float sx, float sy, float px, float py) {
+        scale(mValues, sx, sy, px, py);
+    }
+
+    @Implementation
+    public void setRotate(float degrees) {
+        rotate(mValues, degrees, 0, 0);
+    }
+
+    @Implementation
+    public void setRotate(float degrees, float px, float py) {
+        rotate(mValues, degrees, px, py);
+    }
+
+    @Implementation
+    public boolean postTranslate(float dx, float dy) {
+        translate(mOp, dx, dy);
+        return post();
+    }
+
+    @Implementation
+    public boolean postScale(float sx, float sy) {
+        scale(mOp, sx, sy, 0, 0);
+        return post();
+    }
+
+    @Implementation
+    public boolean postScale(float sx, float sy, float px, float py) {
+        scale(mOp, sx, sy, px, py);
+        return post();
+    }
+
+    @Implementation
+    public boolean postRotate(float degrees) {
+        rotate(mOp, degrees, 0, 0);
+        return post();
+    }
+
+    @Implementation
+    public boolean postRotate(float degrees, float px, float py) {
+        rotate(mOp, degrees, px, py);
+        return post();
+    }
+
+    @Implementation
+    public boolean preTranslate(float dx, float dy) {
+        translate(mOp, dx, dy);
+        return pre();
+    }
+
+    @Implementation
+    public boolean preScale(float sx, float sy) {
+        scale(mOp, sx, sy, 0, 0);
+        return pre();
+    }
+
+    @Implementation
+    public boolean preScale(float sx, float sy, float px, float py) {
+        scale(mOp, sx, sy, px, py);
+        return pre();
+    }
+
+    @Implementation
+    public boolean preRotate(float degrees, float px, float py) {
+        rotate(mOp, degrees, px, py);
+        return pre();
+    }
+
+    /**
+     * this = op * this
+     */
+    private boolean post() {
+        multiply(mOp, mValues, mTemp);
+        System.arraycopy(mTemp, 0, mValues, 0, 9);
+        return true;
+    }
+
+    /**
+     * this = this * op
+     */
+    private boolean pre() {
+        multiply(mValues, mOp, mTemp);
+        System.arraycopy(mTemp, 0, mValues, 0, 9);
+        return true;
+    }
+
+    private static void multiply(float[] a, float[] b, float[] out) {
+        for (int row = 0; row < 3; row++) {
+            for (int col = 0; col < 3; col++) {
+                out[row * 3 + col] = a[row * 3] * b[col] + a[row * 3 + 1] * b[3 + col]
+                        + a[row * 3 + 2] * b[6 + col];
+            }
+        }
+    }
+
+    private static void setIdentity(float[] m) {
+        m[0] = 1;
+        m[1] = 0;
+        m[2] = 0;
+        m[3] = 0;
+        m[4] = 1;
+        m[5] = 0;
+        m[6] = 0;
+        m[7] = 0;
+        m[8] = 1;
+    }
+
+    private static void translate(float[] m, float dx, float dy) {
+        setIdentity(m);
+        m[2] = dx;
+        m[5] = dy;
+    }
+
+    private static void scale(float[] m, float sx, float sy, float px, float py) {
+        setIdentity(m);
+        m[0] = sx;
+        m[4] = sy;
+        m[2] = px - sx * px;
+        m[5] = py - sy * py;
+    }
+
+    // StrictMath保证不同JVM上结果一致
+    private static void rotate(float[] m, float degrees, float px, float py) {
+        double radians = Math.toRadians(degrees);
+        float sin = (float) StrictMath.sin(radians);
+        float cos = (float) StrictMath.cos(radians);
+        setIdentity(m);
+        m[0] = cos;
+        m[1] = -sin;
+        m[3] = sin;
+        m[4] = cos;
+        m[2] = px - cos * px + sin * py;
+        m[5] = py - sin * px - cos * py;
+    }
+
+    private static MathMatrix shadowOf(Matrix matrix) {
+        return (MathMatrix) ShadowExtractor.extract(matrix);
+    }
+}
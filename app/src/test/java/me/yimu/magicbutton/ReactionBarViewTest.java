@@ -0,0 +1,90 @@
+package me.yimu.magicbutton;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class ReactionBarViewTest {
+
+    private final ManualFrameClock mClock = new ManualFrameClock();
+    private ReactionBarView mBar;
+    private int mVote;
+    private int mLike;
+    private int mLastSlot = -1;
+
+    @Before
+    public void setUp() throws Exception {
+        mClock.install();
+        mBar = new ReactionBarView(RuntimeEnvironment.application);
+        mVote = mBar.addSlot(ReactionBarView.STYLE_VOTE_BUTTON);
+        mBar.setSlotPadding(mVote, 10, 0, 10, 0);
+        mLike = mBar.addSlot(ReactionBarView.STYLE_LIKE);
+        mBar.bindSlot(mVote, 3, false, false);
+        mBar.bindSlot(mLike, 5, true, false);
+        mBar.setOnReactionListener(new ReactionBarView.OnReactionListener() {
+            @Override
+            public void onReaction(ReactionBarView view, int slot, boolean on) {
+                mLastSlot = slot;
+            }
+        });
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        mBar.measure(spec, spec);
+        mBar.layout(0, 0, mBar.getMeasuredWidth(), mBar.getMeasuredHeight());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mClock.uninstall();
+    }
+
+    @Test
+    public void slotsDoNotOverlap() throws Exception {
+        int height = mBar.getHeight();
+        assertEquals(mVote, mBar.findSlot(1, height / 2));
+        assertEquals(mLike, mBar.findSlot(mBar.getWidth() - 1, height / 2));
+        assertEquals(-1, mBar.findSlot(mBar.getWidth(), height / 2));
+    }
+
+    @Test
+    public void tapTogglesOnlyTheHitSlot() throws Exception {
+        float y = mBar.getHeight() / 2;
+        float x = mBar.getWidth() - 1;
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0));
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, x, y, 0));
+
+        assertEquals(mLike, mLastSlot);
+        assertFalse(mBar.isSlotOn(mLike));
+        assertEquals(4, mBar.getSlotCount(mLike));
+        assertFalse(mBar.isSlotOn(mVote));
+        assertEquals(3, mBar.getSlotCount(mVote));
+
+        while (mClock.hasFrame()) {
+            mClock.step();
+        }
+        assertFalse(mBar.isSlotOn(mLike));
+    }
+
+    @Test
+    public void tapOutsideSlots() throws Exception {
+        float y = mBar.getHeight() / 2;
+        float x = mBar.getWidth() - 1;
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, x, y, 0));
+        // 移出按钮之后抬起不算点击
+        mBar.onTouchEvent(MotionEvent.obtain(0, 0, MotionEvent.ACTION_UP, 1, y, 0));
+        assertEquals(-1, mLastSlot);
+        assertTrue(mBar.isSlotOn(mLike));
+        assertFalse(mBar.isSlotOn(mVote));
+    }
+}
@@ -0,0 +1,316 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+import org.robolectric.Shadows;
+
+/**
+ * 记录绘制操作的Canvas，不真正绘制
+ * <p>
+ * 每个绘制操作连同参数和Paint的状态累加到一个hash里，hash相同说明画出来的帧相同
+ * （Robolectric 3.1没有真正的图形库，只能比较绘制操作）。坐标按1/64像素取整，避免浮点误差。
+ * <p>
+ * 开启计时后不算hash，两次绘制操作之间按钮代码花的时间算到后一个操作所属的阶段上，
+ * 比如 设置Paint + drawBitmap 算icon。
+ */
+class RecordingCanvas extends Canvas {
+
+    static final int PHASE_BORDER = 0;
+    static final int PHASE_RIPPLE = 1;
+    static final int PHASE_ICON = 2;
+    static final int PHASE_TEXT = 3;
+    static final int PHASE_PARTICLES = 4;
+    // save/restore/clip等，以及最后一个操作之后的时间
+    static final int PHASE_OTHER = 5;
+    static final String[] PHASE_NAMES = {"border", "ripple", "icon", "text", "particles", "other"};
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] mPhaseNanos = new long[PHASE_NAMES.length];
+    private final float[] mMatrixValues = new float[9];
+    private final Matrix mLocalMatrix = new Matrix();
+    private long mHash = FNV_OFFSET;
+    private boolean mTiming;
+    private long mLastNanos;
+
+    /**
+     * 开始绘制一帧
+     *
+     * @param timing 是否统计各阶段的耗时
+     */
+    void begin(boolean timing) {
+        mTiming = timing;
+        mLastNanos = System.nanoTime();
+    }
+
+    void end() {
+        if (mTiming) {
+            mPhaseNanos[PHASE_OTHER] += System.nanoTime() - mLastNanos;
+        }
+    }
+
+    long getHash() {
+        return mHash;
+    }
+
+    void resetHash() {
+        mHash = FNV_OFFSET;
+    }
+
+    long getPhaseNanos(int phase) {
+        return mPhaseNanos[phase];
+    }
+
+    void resetTimes() {
+        for (int i = 0; i < mPhaseNanos.length; i++) {
+            mPhaseNanos[i] = 0;
+        }
+    }
+
+    /**
+     * @return 是否需要记录参数，计时的时候不记录，避免算hash的开销混进结果
+     */
+    private boolean enter(int phase, int op) {
+        if (mTiming) {
+            mPhaseNanos[phase] += System.nanoTime() - mLastNanos;
+            return false;
+        }
+        mix(op);
+        return true;
+    }
+
+    private void exit() {
+        if (mTiming) {
+            mLastNanos = System.nanoTime();
+        }
+    }
+
+    private void mix(int value) {
+        for (int i = 0; i < 4; i++) {
+            mHash ^= (value >>> (i * 8)) & 0xff;
+            mHash *= FNV_PRIME;
+        }
+    }
+
+    private void mix(float value) {
+        mix(Math.round(value * 64));
+    }
+
+    private void mix(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            mix(text.charAt(i));
+        }
+    }
+
+    private void mix(RectF rect) {
+        mix(rect.left);
+        mix(rect.top);
+        mix(rect.right);
+        mix(rect.bottom);
+    }
+
+    private void mix(Matrix matrix) {
+        if (matrix == null) {
+            mix(0);
+            return;
+        }
+        matrix.getValues(mMatrixValues);
+        for (float value : mMatrixValues) {
+            mix(value);
+        }
+    }
+
+    private void mix(Paint paint) {
+        if (paint == null) {
+            mix(0);
+            return;
+        }
+        mix(paint.getColor());
+        mix(paint.getAlpha());
+        mix(paint.getStyle() != null ? paint.getStyle().ordinal() : -1);
+        mix(paint.getStrokeWidth());
+        mix(paint.getStrokeCap() != null ? paint.getStrokeCap().ordinal() : -1);
+        mix(paint.getTextSize());
+        Shader shader = paint.getShader();
+        if (shader != null) {
+            mix(shader.getClass().getName(), 0, shader.getClass().getName().length());
+            mix(shader.getLocalMatrix(mLocalMatrix) ? mLocalMatrix : null);
+        }
+    }
+
+    private static int shapePhase(Paint paint) {
+        return paint != null && paint.getShader() != null ? PHASE_RIPPLE : PHASE_BORDER;
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        if (enter(shapePhase(paint), 1)) {
+            mix(rect);
+            mix(rx);
+            mix(ry);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        if (enter(shapePhase(paint), 2)) {
+            mix(rect);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        if (enter(shapePhase(paint), 2)) {
+            mix(left);
+            mix(top);
+            mix(right);
+            mix(bottom);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        if (enter(PHASE_RIPPLE, 3)) {
+            mix(cx);
+            mix(cy);
+            mix(radius);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawColor(int color) {
+        if (enter(PHASE_BORDER, 4)) {
+            mix(color);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        if (enter(PHASE_ICON, 5)) {
+            String description = Shadows.shadowOf(bitmap).getDescription();
+            mix(description, 0, description.length());
+            mix(bitmap.getWidth());
+            mix(bitmap.getHeight());
+            mix(matrix);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        if (enter(PHASE_ICON, 6)) {
+            String description = Shadows.shadowOf(bitmap).getDescription();
+            mix(description, 0, description.length());
+            mix(left);
+            mix(top);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        if (enter(PHASE_TEXT, 7)) {
+            mix(text, 0, text.length());
+            mix(x);
+            mix(y);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        if (enter(PHASE_TEXT, 7)) {
+            mix(text, start, end);
+            mix(x);
+            mix(y);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        if (enter(PHASE_TEXT, 7)) {
+            mix(new String(text, index, count), 0, count);
+            mix(x);
+            mix(y);
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public void drawPoints(float[] pts, int offset, int count, Paint paint) {
+        if (enter(PHASE_PARTICLES, 8)) {
+            for (int i = offset; i < offset + count; i++) {
+                mix(pts[i]);
+            }
+            mix(paint);
+        }
+        exit();
+    }
+
+    @Override
+    public int save() {
+        enter(PHASE_OTHER, 9);
+        exit();
+        return 1;
+    }
+
+    @Override
+    public void restore() {
+        enter(PHASE_OTHER, 10);
+        exit();
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        enter(PHASE_OTHER, 10);
+        exit();
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        if (enter(PHASE_OTHER, 11)) {
+            mix(dx);
+            mix(dy);
+        }
+        exit();
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        if (enter(PHASE_OTHER, 12)) {
+            mix(left);
+            mix(top);
+            mix(right);
+            mix(bottom);
+        }
+        exit();
+        return true;
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        return clipRect(rect.left, rect.top, rect.right, rect.bottom);
+    }
+}
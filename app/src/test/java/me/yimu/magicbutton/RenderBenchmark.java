@@ -0,0 +1,321 @@
+package me.yimu.magicbutton;
+
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按钮的逐帧绘制基准
+ * <p>
+ * 每个按钮按固定的16ms一帧（{@link ManualFrameClock}）走完静止、点赞、取消点赞等阶段，
+ * 每一帧画到{@link RecordingCanvas}上：
+ * <ul>
+ * <li>{@link #framesMatchReference()}：每个阶段所有帧的hash和render-frames.txt比较，
+ * 优化之后画出来的东西应该完全一样。有意修改了绘制时，用benchmark打出的hash更新这个文件</li>
+ * <li>{@link #benchmark()}：统计每帧动画更新和绘制的耗时，绘制再按border/ripple/icon/text/particles拆开，
+ * 结果输出到控制台和build/reports/render-benchmark.txt。
+ * 默认跳过，用./gradlew testDebugUnitTest -PrenderBenchmark运行</li>
+ * </ul>
+ * Robolectric的Canvas不真正绘制，这里的耗时不含Skia光栅化，只反映按钮自己的代码，适合前后对比。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class RenderBenchmark {
+
+    private static final String REFERENCE = "/render-frames.txt";
+    private static final String REPORT = "build/reports/render-benchmark.txt";
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 10;
+    // 每一帧重复绘制的次数
+    private static final int DRAWS_PER_FRAME = 20;
+
+    private final ManualFrameClock mClock = new ManualFrameClock();
+    private final RecordingCanvas mCanvas = new RecordingCanvas();
+
+    @Before
+    public void setUp() throws Exception {
+        mClock.install();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mClock.uninstall();
+    }
+
+    @Test
+    public void framesMatchReference() throws Exception {
+        Map<String, String> reference = loadReference();
+        Assume.assumeTrue(reference != null);
+        for (Scenario scenario : scenarios()) {
+            for (PhaseResult result : run(scenario, 0)) {
+                String key = scenario.mName + " " + result.mName;
+                assertEquals(key + " frames changed, update " + REFERENCE + " if intended",
+                        reference.get(key), result.mFrames + " " + hex(result.mHash));
+            }
+        }
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("renderBenchmark"));
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(Locale.US, "%-18s %-9s %6s %8s %8s", "widget", "phase",
+                "frames", "update", "draw"));
+        for (String name : RecordingCanvas.PHASE_NAMES) {
+            report.append(String.format(Locale.US, " %9s", name));
+        }
+        report.append(String.format(Locale.US, " %16s%n", "hash"));
+
+        for (Scenario scenario : scenarios()) {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                run(scenario, DRAWS_PER_FRAME);
+            }
+            // 每个阶段取最快的一轮
+            List<PhaseResult> best = run(scenario, DRAWS_PER_FRAME);
+            for (int i = 1; i < ROUNDS; i++) {
+                List<PhaseResult> results = run(scenario, DRAWS_PER_FRAME);
+                for (int j = 0; j < results.size(); j++) {
+                    if (results.get(j).drawNanos() < best.get(j).drawNanos()) {
+                        best.set(j, results.get(j));
+                    }
+                }
+            }
+            for (PhaseResult result : best) {
+                report.append(String.format(Locale.US, "%-18s %-9s %6d %8d %8d", scenario.mName,
+                        result.mName, result.mFrames, result.mUpdateNanos / result.mFrames,
+                        result.drawNanos() / result.mFrames));
+                for (long nanos : result.mPhaseNanos) {
+                    report.append(String.format(Locale.US, " %9d", nanos / result.mFrames));
+                }
+                report.append(String.format(Locale.US, " %16s%n", hex(result.mHash)));
+            }
+        }
+        report.append("ns/frame, draw = sum of the render phases\n");
+
+        System.out.print(report);
+        File file = new File(REPORT);
+        file.getParentFile().mkdirs();
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(report.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 新建一个按钮走完所有阶段
+     *
+     * @param draws 每帧计时绘制的次数，0为不计时，只算hash
+     */
+    private List<PhaseResult> run(Scenario scenario, int draws) {
+        View view = scenario.create();
+        layout(view);
+        List<PhaseResult> results = new ArrayList<>();
+        for (int i = 0; i < scenario.mPhases.length; i++) {
+            PhaseResult result = new PhaseResult(scenario.mPhases[i]);
+            mCanvas.resetTimes();
+            scenario.trigger(view, i);
+            layout(view);
+            drawFrame(scenario, view, result, draws);
+            while (mClock.hasFrame()) {
+                long start = System.nanoTime();
+                mClock.step();
+                result.mUpdateNanos += System.nanoTime() - start;
+                drawFrame(scenario, view, result, draws);
+            }
+            for (int phase = 0; phase < result.mPhaseNanos.length; phase++) {
+                result.mPhaseNanos[phase] = draws > 0 ? mCanvas.getPhaseNanos(phase) / draws : 0;
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private void drawFrame(Scenario scenario, View view, PhaseResult result, int draws) {
+        mCanvas.resetHash();
+        mCanvas.begin(false);
+        scenario.draw(view, mCanvas);
+        mCanvas.end();
+        result.mHash = result.mHash * 31 + mCanvas.getHash();
+        result.mFrames++;
+
+        for (int i = 0; i < draws; i++) {
+            mCanvas.begin(true);
+            scenario.draw(view, mCanvas);
+            mCanvas.end();
+        }
+    }
+
+    private static List<Scenario> scenarios() {
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new VoteScenario("FrodoVoteButton") {
+            @Override
+            View create() {
+                FrodoVoteButton button = new FrodoVoteButton(RuntimeEnvironment.application);
+                button.setPadding(dip2px(10), 0, dip2px(10), 0);
+                button.setVotedCount(99);
+                return button;
+            }
+        });
+        scenarios.add(new VoteScenario("FrodoVoteTextView") {
+            @Override
+            View create() {
+                FrodoVoteTextView view = new FrodoVoteTextView(RuntimeEnvironment.application);
+                view.setVotedCount(99);
+                return view;
+            }
+        });
+        scenarios.add(new VoteScenario("FrodoLikeTextView") {
+            @Override
+            View create() {
+                FrodoLikeTextView view = new FrodoLikeTextView(RuntimeEnvironment.application);
+                view.setLikedCount(99);
+                return view;
+            }
+        });
+        scenarios.add(new Scenario("RippleButton", "idle", "ripple", "activated") {
+            @Override
+            View create() {
+                RippleButton button = new RippleButton(RuntimeEnvironment.application);
+                button.setText("关注");
+                button.setPadding(dip2px(16), dip2px(8), dip2px(16), dip2px(8));
+                return button;
+            }
+
+            @Override
+            void trigger(View view, int phase) {
+                if (phase == 1) {
+                    RippleButton button = (RippleButton) view;
+                    button.setRippleStartPos(view.getWidth() / 4, view.getHeight() / 2);
+                    button.startRipple();
+                }
+            }
+
+            @Override
+            void draw(View view, RecordingCanvas canvas) {
+                ((RippleButton) view).onDraw(canvas);
+            }
+        });
+        return scenarios;
+    }
+
+    private static Map<String, String> loadReference() throws IOException {
+        InputStream in = RenderBenchmark.class.getResourceAsStream(REFERENCE);
+        if (in == null) {
+            return null;
+        }
+        Map<String, String> reference = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                // widget phase frames hash
+                String[] parts = line.trim().split("\\s+");
+                reference.put(parts[0] + " " + parts[1], parts[2] + " " + parts[3]);
+            }
+        } finally {
+            reader.close();
+        }
+        return reference;
+    }
+
+    private static void layout(View view) {
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        view.measure(spec, spec);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    private static int dip2px(float dip) {
+        return UIUtils.dip2px(RuntimeEnvironment.application, dip);
+    }
+
+    private static String hex(long hash) {
+        return String.format(Locale.US, "%016x", hash);
+    }
+
+    private static abstract class Scenario {
+
+        final String mName;
+        final String[] mPhases;
+
+        Scenario(String name, String... phases) {
+            mName = name;
+            mPhases = phases;
+        }
+
+        abstract View create();
+
+        /**
+         * 进入第phase个阶段，之后一直走到动画结束
+         */
+        abstract void trigger(View view, int phase);
+
+        abstract void draw(View view, RecordingCanvas canvas);
+    }
+
+    private static abstract class VoteScenario extends Scenario {
+
+        VoteScenario(String name) {
+            super(name, "idle", "vote", "voted", "unvote");
+        }
+
+        @Override
+        void trigger(View view, int phase) {
+            if (phase == 1 || phase == 3) {
+                ((MagicVoteView) view).onClick(view);
+            }
+        }
+
+        @Override
+        void draw(View view, RecordingCanvas canvas) {
+            ((MagicVoteView) view).dispatchDraw(canvas);
+        }
+    }
+
+    private static class PhaseResult {
+
+        final String mName;
+        final long[] mPhaseNanos = new long[RecordingCanvas.PHASE_NAMES.length];
+        int mFrames;
+        long mUpdateNanos;
+        long mHash;
+
+        PhaseResult(String name) {
+            mName = name;
+        }
+
+        long drawNanos() {
+            long nanos = 0;
+            for (long phase : mPhaseNanos) {
+                nanos += phase;
+            }
+            return nanos;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package me.yimu.magicbutton;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class RoundedCornerTest {
+
+    private Context mContext;
+    private Bitmap mAvatar;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = RuntimeEnvironment.application;
+        mAvatar = Bitmap.createBitmap(40, 40, Bitmap.Config.ARGB_8888);
+        UIUtils.clearRoundedCornerCache();
+    }
+
+    @Test
+    public void bitmapCachedPerArguments() throws Exception {
+        Bitmap rounded = UIUtils.getSharedRoundedCornerBitmap(mAvatar, Color.WHITE, 4, 1, mContext);
+        assertNotSame(mAvatar, rounded);
+        assertEquals(40, rounded.getWidth());
+        assertFalse(rounded.isMutable());
+        assertFalse(rounded.isRecycled());
+        assertSame(rounded, UIUtils.getSharedRoundedCornerBitmap(mAvatar, Color.WHITE, 4, 1, mContext));
+
+        assertNotSame(rounded, UIUtils.getSharedRoundedCornerBitmap(mAvatar, Color.BLACK, 4, 1, mContext));
+        assertNotSame(rounded, UIUtils.getSharedRoundedCornerBitmap(mAvatar, Color.WHITE, 5, 1, mContext));
+        assertNotSame(rounded, UIUtils.getSharedRoundedCornerBitmap(mAvatar, Color.WHITE, 4, 2, mContext));
+        // 同样内容的另一张图不共用
+        Bitmap other = Bitmap.createBitmap(40, 40, Bitmap.Config.ARGB_8888);
+        assertNotSame(rounded, UIUtils.getSharedRoundedCornerBitmap(other, Color.WHITE, 4, 1, mContext));
+
+        UIUtils.clearRoundedCornerCache();
+        assertNotSame(rounded, UIUtils.getSharedRoundedCornerBitmap(mAvatar, Color.WHITE, 4, 1, mContext));
+    }
+
+    @Test
+    public void plainBitmapIsNotShared() throws Exception {
+        Bitmap rounded = UIUtils.getRoundedCornerBitmap(mAvatar, Color.WHITE, 4, 1, mContext);
+        assertNotSame(rounded, UIUtils.getRoundedCornerBitmap(mAvatar, Color.WHITE, 4, 1, mContext));
+        assertNotSame(rounded, UIUtils.getSharedRoundedCornerBitmap(mAvatar, Color.WHITE, 4, 1, mContext));
+    }
+
+    @Test
+    public void drawableUsesSourceBitmap() throws Exception {
+        RoundedCornerDrawable drawable = UIUtils.getRoundedCornerDrawable(mAvatar, Color.WHITE, 4, 1, mContext);
+        assertSame(mAvatar, drawable.getBitmap());
+        assertEquals(40, drawable.getIntrinsicWidth());
+        assertEquals(40, drawable.getIntrinsicHeight());
+
+        drawable.setAlpha(128);
+        assertEquals(128, drawable.getAlpha());
+    }
+}
@@ -0,0 +1,27 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Bitmap;
+
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadows.ShadowBitmap;
+
+/**
+ * 保留尺寸的Bitmap.copy
+ * <p>
+ * Robolectric 3.1自带的ShadowBitmap.copy只记录config和mutable，复制出来的Bitmap宽高为0。
+ */
+@Implements(Bitmap.class)
+public class SizedBitmapCopy extends ShadowBitmap {
+
+    @Implementation
+    @Override
+    public Bitmap copy(Bitmap.Config config, boolean isMutable) {
+        Bitmap copy = super.copy(config, isMutable);
+        ShadowBitmap shadow = Shadows.shadowOf(copy);
+        shadow.setWidth(getWidth());
+        shadow.setHeight(getHeight());
+        return copy;
+    }
+}
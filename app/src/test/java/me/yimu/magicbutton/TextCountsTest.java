@@ -0,0 +1,45 @@
+package me.yimu.magicbutton;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TextCountsTest {
+
+    // UIUtils依赖android，这里用类似的中英文混合文字
+    private static final String TEXT = "朋友已走刚升职的你举杯到凌晨,寂寞因此牵我手.";
+
+    @Test
+    public void wordCount_matchesCodePointCount() throws Exception {
+        String[] texts = {"", "abc", "朋友已走", "a朋b友", "😀a", TEXT};
+        for (String text : texts) {
+            assertEquals(text, codePointWordCount(text), TextCounts.getWordCount(text));
+        }
+    }
+
+    @Test
+    public void lineCount_cachedPerFontAndWidth() throws Exception {
+        Object typeface = new Object();
+        assertEquals(-1, TextCounts.getLineCount(13f, 1f, typeface, 300));
+        TextCounts.putLineCount(13f, 1f, typeface, 300, 21);
+        assertEquals(21, TextCounts.getLineCount(13f, 1f, typeface, 300));
+        assertEquals(-1, TextCounts.getLineCount(13f, 1f, typeface, 301));
+        assertEquals(-1, TextCounts.getLineCount(13f, 1f, new Object(), 300));
+    }
+
+    /**
+     * 原来UIUtils.getWordCount的实现
+     */
+    private static int codePointWordCount(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); ++i) {
+            int ascii = Character.codePointAt(s, i);
+            if (ascii >= 0 && ascii <= 255) {
+                ++length;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,220 @@
+package me.yimu.magicbutton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * 用本地的假后端统计写请求，快速连点只产生一次提交
+ */
+public class VoteDispatcherTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * 记录每次commit，和不合并时每次点击都请求的写次数做比较
+     */
+    private static class FakeBackend implements VoteDispatcher.Backend {
+        final List<List<VoteDispatcher.Change>> commits = new ArrayList<>();
+        int writes;
+
+        @Override
+        public synchronized void commit(List<VoteDispatcher.Change> changes) {
+            commits.add(changes);
+            writes += changes.size();
+        }
+    }
+
+    private FakeBackend mBackend;
+
+    @Before
+    public void setUp() throws Exception {
+        mBackend = new FakeBackend();
+    }
+
+    @Test
+    public void rapidToggles_deliverNetChangeOnly() throws Exception {
+        VoteDispatcher dispatcher = new VoteDispatcher(mBackend, DIRECT, 0);
+        int taps = 0;
+        // a: 赞 -> 取消 -> 赞 -> 取消 -> 赞，净变化为赞
+        for (int i = 0; i < 5; i++) {
+            dispatcher.toggle("a", i % 2 == 0);
+            taps++;
+        }
+        // b: 原来是赞，取消 -> 赞 -> 取消 -> 赞，没有变化
+        for (int i = 0; i < 4; i++) {
+            dispatcher.toggle("b", i % 2 != 0);
+            taps++;
+        }
+        // c: 取消赞
+        dispatcher.toggle("c", false);
+        taps++;
+        dispatcher.flush();
+
+        assertEquals(1, mBackend.commits.size());
+        List<VoteDispatcher.Change> changes = mBackend.commits.get(0);
+        assertEquals(2, changes.size());
+        assertEquals("a", changes.get(0).itemId);
+        assertTrue(changes.get(0).voted);
+        assertEquals("c", changes.get(1).itemId);
+        assertFalse(changes.get(1).voted);
+        assertEquals(10, taps);
+        assertEquals(2, mBackend.writes);
+    }
+
+    @Test
+    public void cancelledPairs_noCommit() throws Exception {
+        VoteDispatcher dispatcher = new VoteDispatcher(mBackend, DIRECT, 0);
+        dispatcher.toggle("a", true);
+        dispatcher.toggle("a", false);
+        dispatcher.flush();
+        assertEquals(0, mBackend.commits.size());
+        assertEquals(0, dispatcher.getPendingCount());
+    }
+
+    @Test
+    public void nextWindow_startsFromCommittedState() throws Exception {
+        VoteDispatcher dispatcher = new VoteDispatcher(mBackend, DIRECT, 0);
+        dispatcher.toggle("a", true);
+        dispatcher.flush();
+        dispatcher.toggle("a", false);
+        dispatcher.flush();
+        assertEquals(2, mBackend.commits.size());
+        assertFalse(mBackend.commits.get(1).get(0).voted);
+    }
+
+    @Test
+    public void window_flushesOnExecutor() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Thread[] commitThread = new Thread[1];
+        VoteDispatcher dispatcher = new VoteDispatcher(new VoteDispatcher.Backend() {
+            @Override
+            public void commit(List<VoteDispatcher.Change> changes) {
+                mBackend.commit(changes);
+                commitThread[0] = Thread.currentThread();
+                latch.countDown();
+            }
+        }, DIRECT, 50);
+        dispatcher.toggle("a", true);
+        dispatcher.toggle("b", true);
+        assertEquals(0, mBackend.commits.size());
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(1, mBackend.commits.size());
+        assertEquals(2, mBackend.writes);
+        assertNotSame(Thread.currentThread(), commitThread[0]);
+    }
+
+    @Test
+    public void windowsCommitInOrderOnThreadPool() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicBoolean first = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            VoteDispatcher dispatcher = new VoteDispatcher(new VoteDispatcher.Backend() {
+                @Override
+                public void commit(List<VoteDispatcher.Change> changes) {
+                    // 第一个窗口的请求比较慢，第二个窗口不能先到
+                    if (first.getAndSet(false)) {
+                        try {
+                            release.await(2, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    mBackend.commit(changes);
+                    done.countDown();
+                }
+            }, pool, 0);
+            dispatcher.toggle("a", true);
+            dispatcher.flush();
+            dispatcher.toggle("a", false);
+            dispatcher.flush();
+            release.countDown();
+            assertTrue(done.await(2, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(2, mBackend.commits.size());
+        assertTrue(mBackend.commits.get(0).get(0).voted);
+        assertFalse(mBackend.commits.get(1).get(0).voted);
+    }
+
+    @Test
+    public void commitFailure_reportedAndNextWindowSent() throws Exception {
+        final List<Throwable> errors = new ArrayList<>();
+        VoteDispatcher dispatcher = new VoteDispatcher(new VoteDispatcher.Backend() {
+            @Override
+            public void commit(List<VoteDispatcher.Change> changes) {
+                if (changes.get(0).itemId.equals("a")) {
+                    throw new IllegalStateException("network");
+                }
+                mBackend.commit(changes);
+            }
+        }, DIRECT, 0);
+        dispatcher.setOnCommitFailedListener(new VoteDispatcher.OnCommitFailedListener() {
+            @Override
+            public void onCommitFailed(List<VoteDispatcher.Change> changes, Throwable error) {
+                assertEquals("a", changes.get(0).itemId);
+                errors.add(error);
+            }
+        });
+        dispatcher.toggle("a", true);
+        dispatcher.flush();
+        assertEquals(1, errors.size());
+        assertEquals("network", errors.get(0).getMessage());
+
+        dispatcher.toggle("b", true);
+        dispatcher.flush();
+        assertEquals(1, mBackend.commits.size());
+    }
+
+    @Test
+    public void rejectedWindow_retriedOnNextFlush() throws Exception {
+        final AtomicBoolean reject = new AtomicBoolean(true);
+        final List<Throwable> errors = new ArrayList<>();
+        VoteDispatcher dispatcher = new VoteDispatcher(mBackend, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (reject.get()) {
+                    throw new RejectedExecutionException();
+                }
+                command.run();
+            }
+        }, 0);
+        dispatcher.setOnCommitFailedListener(new VoteDispatcher.OnCommitFailedListener() {
+            @Override
+            public void onCommitFailed(List<VoteDispatcher.Change> changes, Throwable error) {
+                errors.add(error);
+            }
+        });
+        dispatcher.toggle("a", true);
+        dispatcher.flush();
+        assertEquals(1, errors.size());
+        assertTrue(mBackend.commits.isEmpty());
+
+        // 没有停在提交中的状态，被拒绝的窗口按顺序先提交
+        reject.set(false);
+        dispatcher.toggle("b", true);
+        dispatcher.flush();
+        assertEquals(2, mBackend.commits.size());
+        assertEquals("a", mBackend.commits.get(0).get(0).itemId);
+        assertEquals("b", mBackend.commits.get(1).get(0).itemId);
+    }
+}
@@ -0,0 +1,112 @@
+package me.yimu.magicbutton;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+/**
+ * 乐观更新之后，只有和按钮当前显示不一致时才需要回调
+ */
+public class VoteReconcilerTest {
+
+    private final List<String> mCallbacks = new ArrayList<>();
+    private VoteReconciler mReconciler;
+
+    @Before
+    public void setUp() throws Exception {
+        mReconciler = new VoteReconciler(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }, new VoteReconciler.Listener() {
+            @Override
+            public void onReconciled(String itemId, int count, boolean voted) {
+                mCallbacks.add(itemId + ":" + count + ":" + voted);
+            }
+        });
+        mReconciler.setServerState("a", 10, false);
+    }
+
+    @Test
+    public void confirm_doesNotNotify() throws Exception {
+        long op = mReconciler.begin("a", true);
+        mReconciler.confirm(op);
+        assertTrue(mCallbacks.isEmpty());
+        assertFalse(mReconciler.hasPending("a"));
+    }
+
+    @Test
+    public void fail_rollsBack() throws Exception {
+        long op = mReconciler.begin("a", true);
+        mReconciler.fail(op);
+        assertEquals(1, mCallbacks.size());
+        assertEquals("a:10:false", mCallbacks.get(0));
+    }
+
+    @Test
+    public void failMiddleOp_keepsLaterOps() throws Exception {
+        long vote = mReconciler.begin("a", true);
+        long unvote = mReconciler.begin("a", false);
+        long revote = mReconciler.begin("a", true);
+        // 中间的取消赞失败，显示的仍然是最后一次点赞的结果
+        mReconciler.fail(unvote);
+        assertTrue(mCallbacks.isEmpty());
+        // 最后一次点赞失败，回到第一次点赞的结果
+        mReconciler.fail(revote);
+        assertTrue(mCallbacks.isEmpty());
+        mReconciler.fail(vote);
+        assertEquals("a:10:false", mCallbacks.get(0));
+    }
+
+    @Test
+    public void serverCount_mergedUnderPendingOps() throws Exception {
+        mReconciler.begin("a", true);
+        // 其他用户也点了赞，本地的赞还没有确认
+        mReconciler.setServerState("a", 12, false);
+        assertEquals(1, mCallbacks.size());
+        assertEquals("a:13:true", mCallbacks.get(0));
+    }
+
+    @Test
+    public void sameServerState_doesNotNotify() throws Exception {
+        long op = mReconciler.begin("a", true);
+        mReconciler.confirm(op);
+        mReconciler.setServerState("a", 11, true);
+        assertTrue(mCallbacks.isEmpty());
+    }
+
+    @Test
+    public void confirmLater_supersedesEarlier() throws Exception {
+        long vote = mReconciler.begin("a", true);
+        long unvote = mReconciler.begin("a", false);
+        mReconciler.confirm(unvote);
+        // 先发出的请求晚返回，已经被覆盖
+        mReconciler.fail(vote);
+        assertTrue(mCallbacks.isEmpty());
+        assertFalse(mReconciler.hasPending("a"));
+    }
+
+    @Test
+    public void response_onlyAffectsItsItem() throws Exception {
+        mReconciler.setServerState("b", 5, false);
+        long a = mReconciler.begin("a", true);
+        long b = mReconciler.begin("b", true);
+        mReconciler.fail(b);
+        assertEquals(1, mCallbacks.size());
+        assertEquals("b:5:false", mCallbacks.get(0));
+        assertTrue(mReconciler.hasPending("a"));
+
+        // 同一个操作的响应重复到达时忽略
+        mReconciler.fail(b);
+        mReconciler.confirm(a);
+        mReconciler.confirm(a);
+        assertEquals(1, mCallbacks.size());
+        assertFalse(mReconciler.hasPending("a"));
+    }
+}
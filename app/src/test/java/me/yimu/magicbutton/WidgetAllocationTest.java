@@ -0,0 +1,265 @@
+package me.yimu.magicbutton;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implements;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按钮绘制和动画热路径上的内存分配回归测试
+ * <p>
+ * 动画由{@link ManualFrameClock}逐帧推进，
+ * 直接调用dispatchDraw画到空实现的Canvas上，用ThreadMXBean统计当前线程分配的字节数。
+ * 预热之后测{@link #ROUNDS}轮取中位数：静止状态的绘制不能分配，一次点击的分配不能超过{@link #TAP_BUDGET_BYTES}，
+ * 一次动画所有帧加起来不能超过{@link #ANIMATION_BUDGET_BYTES}。
+ * 只统计按钮自己的代码，Robolectric shadow的分配（Choreographer、Canvas、View）都绕开了，
+ * Matrix用不分配的{@link MathMatrix}。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, shadows = {
+        WidgetAllocationTest.QuietView.class, MathMatrix.class, SizedBitmapCopy.class})
+public class WidgetAllocationTest {
+
+    // 点击的预算：新数字的String
+    private static final long TAP_BUDGET_BYTES = 256;
+    // 一次完整动画所有帧加起来的预算，每帧都分配的话几十帧一定会超出
+    private static final long ANIMATION_BUDGET_BYTES = 64;
+    private static final int DRAW_COUNT = 100;
+    // 每个按钮测几轮取中位数，JIT和Robolectric偶尔在某一帧里的分配不会影响结果
+    private static final int ROUNDS = 6;
+
+    private final ManualFrameClock mClock = new ManualFrameClock();
+    private final Canvas mCanvas = new NoOpCanvas();
+    private final AllocationCounter mCounter = new AllocationCounter();
+
+    @Before
+    public void setUp() throws Exception {
+        mClock.install();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mClock.uninstall();
+    }
+
+    @Test
+    public void voteButton() throws Exception {
+        FrodoVoteButton button = new FrodoVoteButton(RuntimeEnvironment.application);
+        button.setPadding(dip2px(10), 0, dip2px(10), 0);
+        button.setVotedCount(99);
+        checkAllocations(new VoteSubject(button));
+    }
+
+    @Test
+    public void voteTextView() throws Exception {
+        FrodoVoteTextView view = new FrodoVoteTextView(RuntimeEnvironment.application);
+        view.setVotedCount(99);
+        checkAllocations(new VoteSubject(view));
+    }
+
+    @Test
+    public void likeTextView() throws Exception {
+        FrodoLikeTextView view = new FrodoLikeTextView(RuntimeEnvironment.application);
+        view.setLikedCount(99);
+        checkAllocations(new VoteSubject(view));
+    }
+
+    @Test
+    public void rippleButton() throws Exception {
+        final RippleButton button = new RippleButton(RuntimeEnvironment.application);
+        button.setPadding(dip2px(16), dip2px(8), dip2px(16), dip2px(8));
+        checkAllocations(new Subject(button) {
+            @Override
+            void tap() {
+                button.setRippleStartPos(button.getWidth() / 4, button.getHeight() / 2);
+                button.startRipple();
+            }
+
+            @Override
+            void draw(Canvas canvas) {
+                button.onDraw(canvas);
+            }
+        });
+    }
+
+    private void checkAllocations(Subject subject) {
+        String name = name(subject.mView);
+        layout(subject.mView);
+        // 预热：动画在第一次点击时创建，类加载和数字的String也在这里完成
+        tapAndFinish(subject);
+        tapAndFinish(subject);
+
+        long[] steady = new long[ROUNDS];
+        long[] taps = new long[ROUNDS];
+        long[] animations = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            // 静止状态的绘制
+            long bytes = mCounter.start();
+            for (int i = 0; i < DRAW_COUNT; i++) {
+                subject.draw(mCanvas);
+            }
+            steady[round] = mCounter.stop(bytes);
+
+            // 点击之后的layout和第一次绘制（新数字的String）算在点击里，点赞和取消点赞交替
+            bytes = mCounter.start();
+            subject.tap();
+            layout(subject.mView);
+            subject.draw(mCanvas);
+            taps[round] = mCounter.stop(bytes);
+
+            int frames = 0;
+            bytes = mCounter.start();
+            while (mClock.hasFrame()) {
+                mClock.step();
+                subject.draw(mCanvas);
+                frames++;
+            }
+            animations[round] = mCounter.stop(bytes);
+            assertTrue(name + " did not animate", frames > 0);
+        }
+        assertEquals(name + " steady draw allocated", 0, median(steady));
+        long tap = median(taps);
+        assertTrue(name + " tap allocated " + tap + " bytes", tap <= TAP_BUDGET_BYTES);
+        long animation = median(animations);
+        assertTrue(name + " animation frames allocated " + animation + " bytes",
+                animation <= ANIMATION_BUDGET_BYTES);
+    }
+
+    private void tapAndFinish(Subject subject) {
+        subject.tap();
+        layout(subject.mView);
+        while (mClock.hasFrame()) {
+            mClock.step();
+            subject.draw(mCanvas);
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static void layout(View view) {
+        int spec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        view.measure(spec, spec);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    private static int dip2px(float dip) {
+        return UIUtils.dip2px(RuntimeEnvironment.application, dip);
+    }
+
+    private static String name(View view) {
+        return view.getClass().getSimpleName();
+    }
+
+    /**
+     * 被测的按钮：点击和绘制自己的部分
+     */
+    private abstract static class Subject {
+        final View mView;
+
+        Subject(View view) {
+            mView = view;
+        }
+
+        abstract void tap();
+
+        abstract void draw(Canvas canvas);
+    }
+
+    private static class VoteSubject extends Subject {
+
+        VoteSubject(MagicVoteView view) {
+            super(view);
+        }
+
+        @Override
+        void tap() {
+            ((MagicVoteView) mView).onClick(mView);
+        }
+
+        @Override
+        void draw(Canvas canvas) {
+            ((MagicVoteView) mView).dispatchDraw(canvas);
+        }
+    }
+
+    /**
+     * 统计当前线程分配的字节数，扣除ThreadMXBean自身调用的开销
+     */
+    private static class AllocationCounter {
+
+        private final com.sun.management.ThreadMXBean mBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        private final long mThreadId = Thread.currentThread().getId();
+        private final long mOverhead;
+
+        AllocationCounter() {
+            long overhead = Long.MAX_VALUE;
+            for (int i = 0; i < 100; i++) {
+                long start = allocatedBytes();
+                overhead = Math.min(overhead, allocatedBytes() - start);
+            }
+            mOverhead = overhead;
+        }
+
+        private long allocatedBytes() {
+            return mBean.getThreadAllocatedBytes(mThreadId);
+        }
+
+        long start() {
+            return allocatedBytes();
+        }
+
+        long stop(long start) {
+            return Math.max(0, allocatedBytes() - start - mOverhead);
+        }
+    }
+
+    /**
+     * 不做任何绘制的Canvas，避免统计到ShadowCanvas记录绘制内容的分配
+     */
+    private static class NoOpCanvas extends Canvas {
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawPoints(float[] pts, int offset, int count, Paint paint) {
+        }
+    }
+
+    /**
+     * 默认的ShadowView在invalidate/requestLayout中通过反射调用原方法，每次都有分配，这里直接走View本身的实现
+     */
+    @Implements(View.class)
+    public static class QuietView {
+    }
+}
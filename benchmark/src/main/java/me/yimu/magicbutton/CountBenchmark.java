@@ -0,0 +1,60 @@
+package me.yimu.magicbutton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数字宽度和数字文字
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CountBenchmark {
+
+    // 接近12sp数字的宽度和bounds，具体的值不影响耗时
+    private final CountMetrics mMetrics = new CountMetrics(
+            new float[]{18, 12, 18, 18, 18, 18, 18, 17, 18, 18}, 11, -32, 9,
+            new float[]{-24, -24, -24, -24, -24, -24, -25, -24, -25, -24},
+            new float[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 1}, -11, -9);
+    private final CountText mCountText = new CountText();
+    private int mCount = 1234;
+
+    @Benchmark
+    public float measure() {
+        return mMetrics.measure(mCount);
+    }
+
+    /**
+     * 每次绘制按数字字符串计算垂直居中的偏移
+     */
+    @Benchmark
+    public float centerOffset() {
+        return mMetrics.getCenterOffsetY(mCount);
+    }
+
+    /**
+     * 点击时数字变化，和没有变化时的缓存命中
+     */
+    @Benchmark
+    public String countTextChanged() {
+        mCount = mCount == 1234 ? 1235 : 1234;
+        return mCountText.get(mCount);
+    }
+
+    @Benchmark
+    public String countTextCached() {
+        return mCountText.get(mCount);
+    }
+}
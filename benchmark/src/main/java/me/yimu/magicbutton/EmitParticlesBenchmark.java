@@ -0,0 +1,64 @@
+package me.yimu.magicbutton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 放射点每帧的计算
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmitParticlesBenchmark {
+
+    @Param({"8", "32", "64"})
+    public int count;
+
+    private EmitParticles mParticles;
+    private float mTime;
+
+    @Setup
+    public void setUp() {
+        mParticles = new EmitParticles(12, 36);
+        mParticles.setCount(count);
+        mParticles.setCenter(40, 40);
+    }
+
+    @Benchmark
+    public float update() {
+        mTime = mTime >= mParticles.getDuration() ? 0 : mTime + 1000f / 60;
+        mParticles.update(mTime);
+        return mParticles.getPoints()[0];
+    }
+
+    /**
+     * 原来的实现：每个点用double计算一次cos/sin
+     */
+    @Benchmark
+    public float updateWithMath() {
+        mTime = mTime >= mParticles.getDuration() ? 0 : mTime + 1000f / 60;
+        float radius = 12 + 24 * KeyframeTimeline.ease(KeyframeTimeline.EASE_DECELERATE,
+                Math.min(mTime / 400, 1));
+        float result = 0;
+        for (int i = 0; i < count; i++) {
+            double angle = i * 360f / count / 180f * Math.PI;
+            result += radius * (float) Math.cos(angle);
+            result += radius * (float) Math.sin(angle);
+        }
+        return result;
+    }
+}
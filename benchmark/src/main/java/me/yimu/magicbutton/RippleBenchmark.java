@@ -0,0 +1,59 @@
+package me.yimu.magicbutton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 水波纹半径的计算
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RippleBenchmark {
+
+    private float mCenterX = 37;
+    private float mCenterY = 21;
+    private float mWidth = 180;
+    private float mHeight = 42;
+
+    /**
+     * 一次完整的水波纹动画，按60fps取帧
+     */
+    @Benchmark
+    public float radiusSweep() {
+        float result = 0;
+        float max = RippleGeometry.farthestCornerDistance(mCenterX, mCenterY, mWidth, mHeight);
+        for (float time = 0; time <= 400; time += 1000f / 60) {
+            float fraction = KeyframeTimeline.ease(KeyframeTimeline.EASE_DECELERATE, time / 400);
+            result += RippleGeometry.radiusAt(5, max, fraction);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public float maxRadius() {
+        return RippleGeometry.farthestCornerDistance(mCenterX, mCenterY, mWidth, mHeight);
+    }
+
+    /**
+     * 原来的实现：Math.pow
+     */
+    @Benchmark
+    public float maxRadiusWithPow() {
+        float w = Math.max(mCenterX, mWidth - mCenterX);
+        float h = Math.max(mCenterY, mHeight - mCenterY);
+        return (float) Math.sqrt(Math.pow(w, 2) + Math.pow(h, 2));
+    }
+}
@@ -0,0 +1,66 @@
+package me.yimu.magicbutton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UIUtils中的文字计数，getWordCount和textCountPerLine的缓存查找
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextCountsBenchmark {
+
+    private static final String TEXT = "朋友已走刚升职的你举杯到凌晨还未够用尽心机拉我手缠在我颈背后说你男友有事忙是借口,"
+            + "Android awesome magic button, 寂寞因此牵我手.除下了他手信后,何以你今天竟想找寻伴侣";
+
+    private final Object mTypeface = new Object();
+
+    @Setup
+    public void setUp() {
+        // 和按钮一样只有少数几种字体和宽度
+        for (int i = 0; i < 4; i++) {
+            TextCounts.putLineCount(36 + i, 1f, mTypeface, 1080, 30 - i);
+        }
+    }
+
+    @Benchmark
+    public int wordCount() {
+        return TextCounts.getWordCount(TEXT);
+    }
+
+    /**
+     * 原来的实现：codePointAt
+     */
+    @Benchmark
+    public int wordCountWithCodePoint() {
+        int length = 0;
+        for (int i = 0; i < TEXT.length(); ++i) {
+            int ascii = Character.codePointAt(TEXT, i);
+            if (ascii >= 0 && ascii <= 255) {
+                ++length;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int lineCountCached() {
+        return TextCounts.getLineCount(39, 1f, mTypeface, 1080);
+    }
+}
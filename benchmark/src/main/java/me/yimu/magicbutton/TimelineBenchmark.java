@@ -0,0 +1,61 @@
+package me.yimu.magicbutton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点赞/取消赞/喜欢的icon动画，按60fps取一次完整动画的所有帧
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimelineBenchmark {
+
+    private static final float FRAME = 1000f / 60;
+
+    /**
+     * 点赞，角度和大小两个通道
+     */
+    @Benchmark
+    public float voteIcon() {
+        return sweep(MagicTimelines.VOTE_ICON);
+    }
+
+    /**
+     * 取消赞和喜欢，只有大小变化
+     */
+    @Benchmark
+    public float scaleIcon() {
+        return sweep(MagicTimelines.SCALE_ICON);
+    }
+
+    /**
+     * 单独取一个值，包括查找关键帧和easing
+     */
+    @Benchmark
+    public float voteIconSingleValue() {
+        return MagicTimelines.VOTE_ICON.getValue(MagicTimelines.CHANNEL_ROTATION, 150);
+    }
+
+    private static float sweep(KeyframeTimeline timeline) {
+        float result = 0;
+        float duration = timeline.getDuration();
+        for (float time = 0; time <= duration; time += FRAME) {
+            result += timeline.getValue(MagicTimelines.CHANNEL_ROTATION, time);
+            result += timeline.getValue(MagicTimelines.CHANNEL_SCALE, time);
+        }
+        return result;
+    }
+}